@@ -2,6 +2,8 @@ plugins {
     id("java")
     // Lombok
     id("io.freefair.lombok") version "8.6"
+    // JMH para los benchmarks (src/jmh/java)
+    id("me.champeau.jmh") version "0.7.2"
 
 
 }
@@ -40,6 +42,8 @@ dependencies {
     // implementation("org.jdbi:jdbi3-sqlite:3.45.2") // JDBI SQLite
     // Driver para SQLite
     implementation("org.xerial:sqlite-jdbc:3.46.0.0")
+    // Pool de conexiones
+    implementation("com.zaxxer:HikariCP:5.1.0")
 
     // Retrofit
     implementation("com.squareup.retrofit2:retrofit:2.11.0")
@@ -68,6 +72,20 @@ tasks.test {
     useJUnitPlatform()
 }
 
+// Benchmarks con JMH: ./gradlew jmh [-PjmhIncludes=NombreDelBenchmark]
+jmh {
+    jmhVersion.set("1.37")
+    project.findProperty("jmhIncludes")?.let { includes.set(listOf(it.toString())) }
+}
+
+// Simulador de tasa de aciertos de la cache: ./gradlew cacheSimulator [-Ptrace=fichero]
+tasks.register<JavaExec>("cacheSimulator") {
+    group = "benchmark"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("dev.joseluisgs.cache.HitRatioSimulator")
+    project.findProperty("trace")?.let { args(it.toString()) }
+}
+
 // Hacer un Jar ejecutable
 tasks.jar {
     manifest {
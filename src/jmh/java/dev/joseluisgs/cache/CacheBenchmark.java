@@ -0,0 +1,109 @@
+package dev.joseluisgs.cache;
+
+import dev.joseluisgs.models.Tenista;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Comparativa de la CacheGeneric actual (protegida con un cerrojo global, ya que no es thread-safe)
+ * frente a ConcurrentCache con bloqueo por segmentos, con distinto número de hilos lectores.
+ * Ejecutar con: ./gradlew jmh
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CacheBenchmark {
+
+    @Param({"generic", "concurrent"})
+    private String implementation;
+
+    @Param({"1024"})
+    private int cacheSize;
+
+    private Function<Long, Tenista> reader;
+    private BiConsumer<Long, Tenista> writer;
+    private Tenista tenista;
+
+    @Setup
+    public void setUp() {
+        tenista = Tenista.builder()
+                .nombre("Roger Federer")
+                .pais("Suiza")
+                .altura(185)
+                .peso(85)
+                .puntos(9600)
+                .mano(Tenista.Mano.DIESTRO)
+                .fechaNacimiento(LocalDate.of(1981, 8, 8))
+                .build();
+
+        switch (implementation) {
+            case "generic" -> {
+                var cache = new CacheGeneric<Long, Tenista>(cacheSize);
+                var lock = new Object();
+                reader = key -> {
+                    synchronized (lock) {
+                        return cache.get(key);
+                    }
+                };
+                writer = (key, value) -> {
+                    synchronized (lock) {
+                        cache.put(key, value);
+                    }
+                };
+            }
+            case "concurrent" -> {
+                var cache = new ConcurrentCache<Long, Tenista>(cacheSize);
+                reader = cache::get;
+                writer = cache::put;
+            }
+            default -> throw new IllegalArgumentException("Implementación desconocida: " + implementation);
+        }
+
+        // Llenamos la cache para medir aciertos
+        for (long i = 0; i < cacheSize; i++) {
+            writer.accept(i, tenista);
+        }
+    }
+
+    private long randomKey() {
+        return ThreadLocalRandom.current().nextLong(cacheSize);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Tenista read1Thread() {
+        return reader.apply(randomKey());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Tenista read4Threads() {
+        return reader.apply(randomKey());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Tenista read8Threads() {
+        return reader.apply(randomKey());
+    }
+
+    // 90% lecturas, 10% escrituras
+    @Benchmark
+    @Threads(8)
+    public Tenista readWrite8Threads() {
+        long key = randomKey();
+        if (ThreadLocalRandom.current().nextInt(10) == 0) {
+            writer.accept(key, tenista);
+            return tenista;
+        }
+        return reader.apply(key);
+    }
+}
@@ -0,0 +1,82 @@
+package dev.joseluisgs.cache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Simulador de tasa de aciertos: reproduce una traza de claves contra CacheGeneric con LRU y con TinyLFU.
+ * La traza es un fichero de texto con una clave (long) por línea, por ejemplo los ids que pide getById sacados del log.
+ * Si no se indica fichero se genera una traza sintética: unos pocos tenistas muy consultados (distribución Zipf)
+ * mezclados con recorridos secuenciales como los de getAll o una importación masiva.
+ * Ejecutar con: ./gradlew cacheSimulator [-Ptrace=fichero]
+ */
+public class HitRatioSimulator {
+    private static final int[] CACHE_SIZES = {50, 100, 500, 1000};
+
+    public static void main(String[] args) throws IOException {
+        long[] trace = args.length > 0 ? readTrace(Path.of(args[0])) : syntheticTrace(1_000_000, 10_000, 42L);
+        System.out.printf("Traza de %d accesos%n", trace.length);
+        System.out.printf("%-10s %-10s %s%n", "Tamaño", "Política", "Tasa de aciertos");
+        for (int size : CACHE_SIZES) {
+            for (EvictionPolicy policy : EvictionPolicy.values()) {
+                System.out.printf("%-10d %-10s %.2f %%%n", size, policy, hitRatio(trace, size, policy) * 100);
+            }
+        }
+    }
+
+    static double hitRatio(long[] trace, int cacheSize, EvictionPolicy policy) {
+        Cache<Long, Boolean> cache = new CacheGeneric<>(CacheConfig.builder()
+                .maximumSize(cacheSize)
+                .evictionPolicy(policy)
+                .build());
+        long hits = 0;
+        for (long key : trace) {
+            if (cache.get(key) != null) {
+                hits++;
+            } else {
+                cache.put(key, Boolean.TRUE);
+            }
+        }
+        return (double) hits / trace.length;
+    }
+
+    private static long[] readTrace(Path file) throws IOException {
+        try (var lines = Files.lines(file)) {
+            return lines.map(String::trim)
+                    .filter(line -> !line.isEmpty())
+                    .mapToLong(Long::parseLong)
+                    .toArray();
+        }
+    }
+
+    // Accesos Zipf sobre el ranking y, de vez en cuando, ráfagas de recorridos secuenciales (~10% de la traza)
+    static long[] syntheticTrace(int length, int players, long seed) {
+        Random random = new Random(seed);
+        double[] cumulative = new double[players];
+        double sum = 0;
+        for (int i = 0; i < players; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        long[] trace = new long[length];
+        long scanKey = players;
+        int i = 0;
+        while (i < length) {
+            if (random.nextInt(5000) == 0) {
+                // Ráfaga de recorrido: claves que no se vuelven a pedir
+                int burst = Math.min(length - i, 500);
+                for (int j = 0; j < burst; j++) {
+                    trace[i++] = scanKey++;
+                }
+            } else {
+                double target = random.nextDouble() * sum;
+                int index = Arrays.binarySearch(cumulative, target);
+                trace[i++] = index >= 0 ? index : -index - 1;
+            }
+        }
+        return trace;
+    }
+}
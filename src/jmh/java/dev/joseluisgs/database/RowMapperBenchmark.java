@@ -0,0 +1,81 @@
+package dev.joseluisgs.database;
+
+import dev.joseluisgs.mapper.TenistaMapper;
+import dev.joseluisgs.models.Tenista;
+import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.mapper.reflect.ConstructorMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Comparativa del selectAll: antes, con el mapeo por constructor a TenistaEntity (columnas por nombre y reflexión)
+ * y después TenistaMapper.toTenista; ahora, con TenistaRowMapper directamente a Tenista por posición.
+ * Ejecutar con: ./gradlew jmh -PjmhIncludes=RowMapperBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RowMapperBenchmark {
+    private static final String SELECT_ALL = "SELECT * FROM TenistaEntity";
+
+    @Param({"100", "10000"})
+    private int rows;
+
+    private Path dir;
+    private JdbiManager<TenistasDao> db;
+    private Jdbi jdbi;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("rowmapper-bench");
+        var file = dir.resolve("tenistas.db").toString();
+        db = new JdbiManager<>(file, TenistasDao.class);
+        db.use(TenistasDao::createTable);
+        db.useTransaction(dao -> {
+            var now = System.currentTimeMillis();
+            for (int i = 0; i < rows; i++) {
+                dao.insert("Roger Federer", "Suiza", 185, 85, 9600, "DIESTRO", LocalDate.of(1981, 8, 8).toEpochDay(), now, now);
+            }
+        });
+        // Las dos variantes consultan igual, sin el DAO (que ya usa el nuevo mapeador), y solo cambia el mapeo
+        jdbi = Jdbi.create("jdbc:sqlite:" + file);
+        jdbi.registerRowMapper(ConstructorMapper.factory(TenistaEntity.class));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        db.close();
+        try (var files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Benchmark
+    public List<Tenista> antesConstructorMapper() {
+        return jdbi.withHandle(handle -> handle.createQuery(SELECT_ALL)
+                        .mapTo(TenistaEntity.class)
+                        .list())
+                .stream()
+                .map(TenistaMapper::toTenista)
+                .toList();
+    }
+
+    @Benchmark
+    public List<Tenista> ahoraRowMapper() {
+        return jdbi.withHandle(handle -> handle.createQuery(SELECT_ALL)
+                .map(new TenistaRowMapper())
+                .list());
+    }
+}
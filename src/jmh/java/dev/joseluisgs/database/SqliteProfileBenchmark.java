@@ -0,0 +1,90 @@
+package dev.joseluisgs.database;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Comparativa de los perfiles de SQLite: los PRAGMA por defecto frente a PERFORMANCE (WAL, synchronous=NORMAL...).
+ * Cada inserción es su propia transacción, como los save/update/delete del repositorio local,
+ * así se ve el coste del fsync de cada commit.
+ * Ejecutar con: ./gradlew jmh -PjmhIncludes=SqliteProfileBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SqliteProfileBenchmark {
+
+    @Param({"DEFAULT", "PERFORMANCE"})
+    private String profile;
+
+    @Param({"1000"})
+    private int rows;
+
+    private Path dir;
+    private JdbiManager<TenistasDao> db;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("sqlite-bench");
+        var sqliteProfile = profile.equals("PERFORMANCE") ? SqliteProfile.PERFORMANCE : SqliteProfile.DEFAULT;
+        db = new JdbiManager<>(dir.resolve("tenistas.db").toString(), TenistasDao.class, JdbiManager.DEFAULT_POOL_SIZE, sqliteProfile);
+        db.use(TenistasDao::createTable);
+        db.useTransaction(dao -> {
+            for (int i = 0; i < rows; i++) {
+                insert(dao);
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        db.close();
+        // La base de datos y, con WAL, sus ficheros -wal y -shm
+        try (var files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    private long insert(TenistasDao dao) {
+        var now = System.currentTimeMillis();
+        return dao.insert("Roger Federer", "Suiza", 185, 85, 9600, "DIESTRO", LocalDate.of(1981, 8, 8).toEpochDay(), now, now);
+    }
+
+    @Benchmark
+    public long insertar() {
+        return db.with(this::insert);
+    }
+
+    @Benchmark
+    public Object buscarPorId() {
+        long id = ThreadLocalRandom.current().nextLong(1, rows + 1);
+        return db.with(dao -> dao.selectById(id));
+    }
+
+    // Lecturas con varios hilos mientras otro escribe: con WAL los lectores no esperan al escritor
+    @Benchmark
+    @Group("mixto")
+    @GroupThreads(3)
+    public Object mixtoLectores() {
+        return buscarPorId();
+    }
+
+    @Benchmark
+    @Group("mixto")
+    @GroupThreads(1)
+    public long mixtoEscritor() {
+        return insertar();
+    }
+}
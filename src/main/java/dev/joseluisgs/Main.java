@@ -8,6 +8,7 @@ import dev.joseluisgs.service.TenistasServiceImpl;
 import java.nio.file.Path;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.stream.Collectors;
@@ -89,6 +90,20 @@ public class Main {
                 )
         );
 
+        // Obtenemos varios tenistas de una vez, los que no están en la cache se cargan juntos
+        tenistasService.getByIds(List.of(1L, 2L, 3L, -1L)).blockOptional().ifPresent(
+                result -> result.fold(
+                        left -> {
+                            System.out.println(left.getMessage());
+                            return null; // No necesita devolver ningún valor en particular
+                        },
+                        right -> {
+                            System.out.println("Tenistas encontrados por id: " + right.size());
+                            return null; // No necesita devolver ningún valor en particular
+                        }
+                )
+        );
+
         // Obtenemos un tenista que no existe
         tenistasService.getById(-1L).blockOptional().ifPresent(
                 result -> result.fold(
@@ -263,6 +278,44 @@ public class Main {
         // Obtenemos la lista de tenistas, ya sabemos cuales son
         var tenistasActuales = tenistasService.getAll(true).blockOptional().get().get();
 
+        // Consultas filtradas en la base de datos, usando sus índices
+        tenistasService.getRanking(3).blockOptional().ifPresent(
+                result -> result.fold(
+                        left -> {
+                            System.out.println(left.getMessage());
+                            return null;
+                        },
+                        right -> {
+                            System.out.println("Top 3 del ranking: " + right.stream().map(Tenista::getNombre).toList());
+                            return null;
+                        }
+                )
+        );
+        tenistasService.getByPais("España").blockOptional().ifPresent(
+                result -> result.fold(
+                        left -> {
+                            System.out.println(left.getMessage());
+                            return null;
+                        },
+                        right -> {
+                            System.out.println("Tenistas españoles en la bd: " + right.size());
+                            return null;
+                        }
+                )
+        );
+        tenistasService.getByPuntosGreaterThan(5000).blockOptional().ifPresent(
+                result -> result.fold(
+                        left -> {
+                            System.out.println(left.getMessage());
+                            return null;
+                        },
+                        right -> {
+                            System.out.println("Tenistas con más de 5000 puntos en la bd: " + right.size());
+                            return null;
+                        }
+                )
+        );
+
         // Comenzamos las operaciones con conlecciones y Streams
 
         // Tenistas ordenados con ranking, es decir, por puntos de mayor a menor
@@ -326,6 +379,14 @@ public class Main {
 
         System.out.printf("País con más puntos: %s -> %d%n", paisMasPuntos, puntuacionTotalPorPais.get(paisMasPuntos));
 
+        // Estadísticas de la cache, para ajustar su tamaño con datos reales
+        var stats = tenistasService.getCacheStats();
+        System.out.printf("Cache: %d aciertos, %d fallos (%.2f %%), %d expulsiones%n",
+                stats.hitCount(), stats.missCount(), stats.hitRate() * 100, stats.evictionCount());
+        System.out.printf("Cache: %d refrescos anticipados, %.2f %% de aciertos gracias a ellos%n",
+                stats.refreshAheadCount(), stats.refreshAheadHitRate() * 100);
+        System.out.printf("Cache: %d cargas, %d fallidas, %.2f ms de media%n",
+                stats.loadSuccessCount() + stats.loadFailureCount(), stats.loadFailureCount(), stats.averageLoadPenalty() / 1_000_000);
 
         System.out.println("👋👋 Adiós Tenistas! 👋👋");
 
@@ -0,0 +1,196 @@
+package dev.joseluisgs.cache;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Cache con carga asíncrona: si el elemento no está, se carga con el cargador, se guarda y se devuelve como Mono.
+ * Las cargas simultáneas de una misma clave se comparten, así solo se consulta el origen una vez.
+ * getAll agrupa todas las claves que faltan en una sola llamada al cargador masivo, si lo hay.
+ * Un Mono vacío del cargador significa que el elemento no existe, y no se guarda nada (salvo en la cache negativa, si la hay).
+ * Las escrituras de fuera (put, invalidate) deben pasar por aquí, así una carga en curso no deja en la cache un valor antiguo.
+ * Cada carga cuenta en las estadísticas (correcta o fallida y su tiempo), un Mono vacío es una carga correcta.
+ */
+public class AsyncLoadingCache<K, T> {
+    private final Cache<K, T> cache;
+    private final Function<K, Mono<T>> loader;
+    // Cargador de varias claves a la vez, null para cargarlas una a una
+    private final Function<Set<K>, Mono<Map<K, T>>> bulkLoader;
+    private final ConcurrentHashMap<K, Mono<T>> inFlight = new ConcurrentHashMap<>();
+    // Solo las cargas hechas aquí, el resto de estadísticas son las de la cache
+    private final StatsCounter stats = new StatsCounter();
+    // Cache negativa: si la clave está ahí no existe y no se carga. Por defecto no hay
+    private Predicate<K> knownMissing = key -> false;
+    private Consumer<K> markMissing = key -> {
+    };
+
+    public AsyncLoadingCache(Cache<K, T> cache, Function<K, Mono<T>> loader) {
+        this(cache, loader, null);
+    }
+
+    public AsyncLoadingCache(Cache<K, T> cache, Function<K, Mono<T>> loader, Function<Set<K>, Mono<Map<K, T>>> bulkLoader) {
+        this.cache = cache;
+        this.loader = loader;
+        this.bulkLoader = bulkLoader;
+    }
+
+    // Las claves que el cargador no encuentra se apuntan en la cache negativa con el valor de notFound
+    public <E> AsyncLoadingCache<K, T> negativeCache(Cache<K, E> negativeCache, Function<K, E> notFound) {
+        this.knownMissing = negativeCache::containsKey;
+        this.markMissing = key -> negativeCache.put(key, notFound.apply(key));
+        return this;
+    }
+
+    // Vacío si no existe, sin cargarlo si está en la cache negativa
+    public Mono<T> get(K key) {
+        T value = cache.get(key);
+        if (value != null) {
+            return Mono.just(value);
+        }
+        if (knownMissing.test(key)) {
+            return Mono.empty();
+        }
+        return load(key);
+    }
+
+    /**
+     * Carga la clave sin mirar antes en la cache, para quien ya ha comprobado que no está.
+     * Si ya hay una carga en curso de esa clave nos unimos a ella.
+     */
+    public Mono<T> load(K key) {
+        return inFlight.computeIfAbsent(key, k -> register(k, timed(() -> loader.apply(k))));
+    }
+
+    /**
+     * Carga en curso de una clave. Al terminar guarda el valor (o apunta que no existe) solo si sigue siendo
+     * la carga vigente: si mientras tanto se ha escrito o invalidado la clave, lo que trae ya es antiguo.
+     * cache() comparte el resultado entre todos los suscriptores y al terminar quitamos la carga del mapa.
+     */
+    private Mono<T> register(K key, Mono<T> source) {
+        AtomicReference<Mono<T>> self = new AtomicReference<>();
+        Mono<T> load = source
+                .doOnSuccess(value -> ifCurrent(key, self.get(), () -> {
+                    if (value != null) {
+                        cache.put(key, value);
+                    } else {
+                        markMissing.accept(key);
+                    }
+                }))
+                .doFinally(signal -> inFlight.remove(key, self.get()))
+                .cache();
+        self.set(load);
+        return load;
+    }
+
+    // computeIfPresent bloquea la clave en el mapa, así no se cuela un put o un invalidate entre la comprobación y la escritura
+    private void ifCurrent(K key, Mono<T> load, Runnable action) {
+        inFlight.computeIfPresent(key, (k, current) -> {
+            if (current == load) {
+                action.run();
+            }
+            return current;
+        });
+    }
+
+    /**
+     * Devuelve los elementos de las claves pedidas que existen.
+     * Las que no están en la cache se cargan juntas con el cargador masivo.
+     */
+    public Mono<Map<K, T>> getAll(Collection<K> keys) {
+        // Una sola pasada por la cache para todas las claves
+        Map<K, T> found = new LinkedHashMap<>(cache.getAll(keys));
+        Set<K> missing = new LinkedHashSet<>(keys);
+        missing.removeAll(found.keySet());
+        missing.removeIf(knownMissing);
+        if (missing.isEmpty()) {
+            return Mono.just(found);
+        }
+        return loadAll(missing).map(loaded -> {
+            found.putAll(loaded);
+            return found;
+        });
+    }
+
+    private Mono<Map<K, T>> loadAll(Set<K> keys) {
+        return Mono.defer(() -> {
+            Map<K, Mono<T>> loads = new LinkedHashMap<>();
+            if (bulkLoader == null) {
+                keys.forEach(key -> loads.put(key, load(key)));
+            } else {
+                // Las claves que ya se están cargando se esperan, el resto va junto al cargador masivo.
+                // Se lanza cuando están todas apuntadas, quien se una antes espera al resultado
+                Set<K> toLoad = new LinkedHashSet<>();
+                Sinks.One<Map<K, T>> loaded = Sinks.one();
+                for (K key : keys) {
+                    loads.put(key, inFlight.computeIfAbsent(key, k -> {
+                        toLoad.add(k);
+                        return register(k, loaded.asMono().mapNotNull(values -> values.get(k)));
+                    }));
+                }
+                if (!toLoad.isEmpty()) {
+                    timed(() -> bulkLoader.apply(toLoad))
+                            .defaultIfEmpty(Map.of())
+                            .subscribe(loaded::tryEmitValue, loaded::tryEmitError);
+                }
+            }
+            return Flux.fromIterable(loads.entrySet())
+                    .flatMap(entry -> entry.getValue().map(value -> Map.entry(entry.getKey(), value)))
+                    .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+        });
+    }
+
+    // Escrituras de fuera del cargador: descartan las cargas en curso de la clave, que traerían un valor anterior
+
+    public void put(K key, T value) {
+        inFlight.remove(key);
+        cache.put(key, value);
+    }
+
+    public void putAll(Map<? extends K, ? extends T> entries) {
+        entries.keySet().forEach(inFlight::remove);
+        cache.putAll(entries);
+    }
+
+    public void invalidate(K key) {
+        inFlight.remove(key);
+        cache.remove(key);
+    }
+
+    public void invalidateAll(Collection<? extends K> keys) {
+        keys.forEach(inFlight::remove);
+        cache.invalidateAll(keys);
+    }
+
+    public void invalidateAll() {
+        inFlight.clear();
+        cache.clear();
+    }
+
+    // La carga se mide desde que alguien se suscribe hasta que termina
+    private <R> Mono<R> timed(Supplier<Mono<R>> load) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return load.get()
+                    .doOnSuccess(value -> stats.recordLoadSuccess(System.nanoTime() - start))
+                    .doOnError(error -> stats.recordLoadFailure(System.nanoTime() - start));
+        });
+    }
+
+    // Estadísticas de la cache más las de las cargas
+    public CacheStats stats() {
+        return cache.stats().plus(stats.snapshot());
+    }
+}
@@ -1,7 +1,11 @@
 package dev.joseluisgs.cache;
 
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 
 public interface Cache<K, T> {
 
@@ -9,6 +13,12 @@ public interface Cache<K, T> {
 
     void put(K key, T value);
 
+    // Guarda la entrada como si se hubiera escrito hace ageNanos, así conserva su caducidad.
+    // Las caches sin caducidad no necesitan la edad
+    default void put(K key, T value, long ageNanos) {
+        put(key, value);
+    }
+
     void remove(K key);
 
     void clear();
@@ -19,6 +29,10 @@ public interface Cache<K, T> {
 
     Collection<T> values();
 
+    // Entradas vivas con su edad. No cuenta como lectura: ni estadísticas, ni refresco, ni cambia su orden.
+    // Es para copiar la cache (por ejemplo a una foto en disco) sin alterarla
+    List<CacheEntry<K, T>> entries();
+
     boolean containsKey(K key);
 
     boolean containsValue(T value);
@@ -28,4 +42,45 @@ public interface Cache<K, T> {
     default boolean isNotEmpty() {
         return !isEmpty();
     }
+
+    // Operaciones por lotes. Por defecto se hacen de una en una,
+    // las caches con cerrojos las sobrescriben para cogerlos una sola vez por lote
+
+    // Devuelve solo las claves que están en la cache
+    default Map<K, T> getAll(Collection<? extends K> keys) {
+        Map<K, T> found = new HashMap<>();
+        for (K key : keys) {
+            T value = get(key);
+            if (value != null) {
+                found.put(key, value);
+            }
+        }
+        return found;
+    }
+
+    default void putAll(Map<? extends K, ? extends T> entries) {
+        entries.forEach(this::put);
+    }
+
+    // Si no está, se calcula y se guarda. Si la función devuelve null no se guarda nada
+    default T computeIfAbsent(K key, Function<? super K, ? extends T> mappingFunction) {
+        T value = get(key);
+        if (value == null) {
+            value = mappingFunction.apply(key);
+            if (value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    default void invalidateAll(Collection<? extends K> keys) {
+        keys.forEach(this::remove);
+    }
+
+    // Foto de las estadísticas acumuladas de la cache
+    CacheStats stats();
+
+    // Para enterarnos de cada entrada que sale de la cache y el motivo
+    void addRemovalListener(RemovalListener<K, T> listener);
 }
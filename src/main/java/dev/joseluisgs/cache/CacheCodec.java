@@ -0,0 +1,14 @@
+package dev.joseluisgs.cache;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Convierte los valores de la cache a binario y viceversa, para guardar y recuperar la foto de la cache.
+ */
+public interface CacheCodec<T> {
+    void write(T value, DataOutput out) throws IOException;
+
+    T read(DataInput in) throws IOException;
+}
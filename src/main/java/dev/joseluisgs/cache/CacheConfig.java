@@ -0,0 +1,50 @@
+package dev.joseluisgs.cache;
+
+import lombok.Builder;
+import lombok.Getter;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Configuración de la cache.
+ * Usamos el patrón Builder de Lombok para no tener constructores con muchos parámetros.
+ * Si expireAfterWrite o refreshAfterWrite son null, no se caduca ni se refresca.
+ * El refresco anticipado necesita caducidad y un cargador (ConcurrentCache).
+ * Con maximumWeight y un weigher la cache también se limita por peso (bytes estimados), además de por número.
+ */
+@Getter
+@Builder(toBuilder = true)
+public class CacheConfig {
+    @Builder.Default
+    private int maximumSize = 100;
+    @Builder.Default
+    private EvictionPolicy evictionPolicy = EvictionPolicy.LRU;
+    // Peso máximo de todas las entradas según el weigher, 0 para limitar solo por número
+    @Builder.Default
+    private long maximumWeight = 0L;
+    private Weigher<?, ?> weigher;
+    @Builder.Default
+    private int concurrencyLevel = ConcurrentCache.DEFAULT_CONCURRENCY_LEVEL;
+    // Tiempo de vida de cada entrada desde que se escribe
+    private Duration expireAfterWrite;
+    // Tiempo tras el que una entrada se recarga en segundo plano (se sigue sirviendo la antigua mientras)
+    private Duration refreshAfterWrite;
+    // Refresco anticipado: las entradas leídas al menos este número de veces desde su escritura
+    // se recargan cuando les queda menos de refreshAheadWindow para caducar. 0 para desactivarlo
+    @Builder.Default
+    private int refreshAheadThreshold = 0;
+    @Builder.Default
+    private Duration refreshAheadWindow = Duration.ZERO;
+    // Dónde se ejecutan las recargas en segundo plano
+    @Builder.Default
+    private Scheduler refreshScheduler = Schedulers.boundedElastic();
+    // Cada cuánto se ejecuta el limpiador en segundo plano de entradas caducadas, null o 0 para no tenerlo
+    @Builder.Default
+    private Duration cleanupInterval = Duration.ofSeconds(1);
+    // Reloj en nanosegundos, se puede cambiar en los tests
+    @Builder.Default
+    private LongSupplier ticker = System::nanoTime;
+}
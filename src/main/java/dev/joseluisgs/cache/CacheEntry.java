@@ -0,0 +1,8 @@
+package dev.joseluisgs.cache;
+
+/**
+ * Entrada de la cache con su edad: nanosegundos desde que se escribió.
+ * Sirve para moverla a otra cache (o a disco) sin que vuelva a empezar a contar su caducidad.
+ */
+public record CacheEntry<K, T>(K key, T value, long ageNanos) {
+}
@@ -1,91 +1,543 @@
 package dev.joseluisgs.cache;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedHashMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongSupplier;
+import java.util.function.ObjLongConsumer;
 
+/**
+ * Cache genérica con expulsión LRU o W-TinyLFU. No es thread-safe, para eso está ConcurrentCache.
+ * Los elementos se guardan en un HashMap y cada nodo está enlazado en una lista de orden de acceso,
+ * así podemos moverlo entre zonas (ventana, probatoria y protegida) sin copiar nada.
+ * Con LRU solo se usa una lista.
+ * Si hay weigher, además del número de entradas se limita su peso total, expulsando siempre las más frías primero.
+ * Las estadísticas se cuentan con LongAdder, por eso no hay trazas de log en cada operación.
+ */
 public class CacheGeneric<K, T> implements Cache<K, T> {
-    private static final Logger logger = LoggerFactory.getLogger(CacheGeneric.class);
     private final int cacheSize;
-    private final LinkedHashMap<K, T> cache;
+    private final HashMap<K, Node<K, T>> cache;
+    private final EvictionPolicy evictionPolicy;
+    // Zonas de la cache. Con LRU todos los nodos están en probation
+    private final AccessOrder<K, T> window = new AccessOrder<>();
+    private final AccessOrder<K, T> probation = new AccessOrder<>();
+    private final AccessOrder<K, T> protectedZone = new AccessOrder<>();
+    private final int windowSize;
+    private final int mainSize;
+    private final int protectedSize;
+    // Límite por peso, 0 si solo se limita por número
+    private final long maximumWeight;
+    private final Weigher<K, T> weigher;
+    private long totalWeight;
+    // Filtro de frecuencias de TinyLFU, null con LRU
+    private final FrequencySketch<K> sketch;
+    // Caducidad y refresco en nanosegundos, 0 si no se usan
+    private final long expireAfterWriteNanos;
+    private final long refreshAfterWriteNanos;
+    // Refresco anticipado de las entradas más leídas, 0 si no se usa
+    private final int refreshAheadThreshold;
+    private final long refreshAheadWindowNanos;
+    private final LongSupplier ticker;
+    // A quién avisamos cuando una entrada debe refrescarse (lo usa ConcurrentCache para recargarla),
+    // con la versión de la entrada para aplicar la recarga solo si nadie la ha tocado mientras tanto
+    private final ObjLongConsumer<K> onRefresh;
+    // Cada escritura da a la entrada una versión nueva
+    private long nextVersion;
+    // Estadísticas y oyentes, ConcurrentCache los comparte entre todos sus segmentos
+    private final StatsCounter stats;
+    private final List<RemovalListener<K, T>> removalListeners;
 
     public CacheGeneric(int cacheSize) {
-        this.cacheSize = cacheSize;
-        this.cache = new LinkedHashMap<K, T>(cacheSize, 0.75f, true) {
-            @Override
-            protected boolean removeEldestEntry(Map.Entry<K, T> eldest) {
-                return size() > CacheGeneric.this.cacheSize;
-            }
-        };
+        this(CacheConfig.builder().maximumSize(cacheSize).build());
+    }
+
+    public CacheGeneric(CacheConfig config) {
+        this(config, null, new StatsCounter(), new CopyOnWriteArrayList<>());
+    }
+
+    @SuppressWarnings("unchecked")
+    CacheGeneric(CacheConfig config, ObjLongConsumer<K> onRefresh, StatsCounter stats, List<RemovalListener<K, T>> removalListeners) {
+        this.cacheSize = config.getMaximumSize();
+        this.cache = new HashMap<>();
+        this.evictionPolicy = config.getEvictionPolicy();
+        if (evictionPolicy == EvictionPolicy.TINY_LFU) {
+            // Ventana del 1% y zona principal SLRU con un 80% protegido
+            this.windowSize = Math.max(1, cacheSize / 100);
+            this.mainSize = cacheSize - windowSize;
+            this.protectedSize = mainSize * 8 / 10;
+            this.sketch = new FrequencySketch<>(cacheSize);
+        } else {
+            this.windowSize = 0;
+            this.mainSize = cacheSize;
+            this.protectedSize = 0;
+            this.sketch = null;
+        }
+        this.weigher = (Weigher<K, T>) config.getWeigher();
+        this.maximumWeight = weigher != null ? config.getMaximumWeight() : 0L;
+        this.expireAfterWriteNanos = config.getExpireAfterWrite() != null ? config.getExpireAfterWrite().toNanos() : 0L;
+        this.refreshAfterWriteNanos = config.getRefreshAfterWrite() != null ? config.getRefreshAfterWrite().toNanos() : 0L;
+        this.refreshAheadThreshold = expireAfterWriteNanos > 0 ? config.getRefreshAheadThreshold() : 0;
+        this.refreshAheadWindowNanos = config.getRefreshAheadWindow().toNanos();
+        this.ticker = config.getTicker();
+        this.onRefresh = onRefresh;
+        this.stats = stats;
+        this.removalListeners = removalListeners;
+    }
+
+    private int weigh(K key, T value) {
+        return weigher != null ? weigher.weigh(key, value) : 0;
+    }
+
+    private boolean isExpired(Node<K, T> node, long now) {
+        return expireAfterWriteNanos > 0 && now - node.writeTime >= expireAfterWriteNanos;
+    }
+
+    // Es de las más leídas y le queda poco para caducar
+    private boolean shouldRefreshAhead(Node<K, T> node, long now) {
+        return refreshAheadThreshold > 0 && onRefresh != null && !node.refreshing
+                && node.accessCount >= refreshAheadThreshold
+                && now - node.writeTime >= expireAfterWriteNanos - refreshAheadWindowNanos;
+    }
+
+    private void refreshAhead(Node<K, T> node) {
+        node.refreshing = true;
+        node.refreshAhead = true;
+        stats.recordRefreshAhead();
+        onRefresh.accept(node.key, node.version);
     }
 
     @Override
     public T get(K key) {
-        logger.debug("Obteniendo el valor de la clave: {}", key);
-        return cache.get(key);
+        if (sketch != null) {
+            sketch.increment(key);
+        }
+        Node<K, T> node = cache.get(key);
+        if (node == null) {
+            stats.recordMiss();
+            return null;
+        }
+        long now = ticker.getAsLong();
+        if (isExpired(node, now)) {
+            removeNode(node, RemovalCause.EXPIRED);
+            stats.recordMiss();
+            return null;
+        }
+        stats.recordHit();
+        if (node.refreshedAhead) {
+            stats.recordRefreshAheadHit();
+        }
+        node.accessCount++;
+        onAccess(node);
+        // Si toca refrescar, seguimos devolviendo el valor actual y avisamos para recargarlo en segundo plano
+        if (refreshAfterWriteNanos > 0 && onRefresh != null && !node.refreshing
+                && now - node.writeTime >= refreshAfterWriteNanos) {
+            node.refreshing = true;
+            onRefresh.accept(key, node.version);
+        } else if (shouldRefreshAhead(node, now)) {
+            refreshAhead(node);
+        }
+        return node.value;
     }
 
     @Override
     public void put(K key, T value) {
-        logger.debug("Añadiendo a cache el valor de la clave: {}", key);
-        cache.put(key, value);
+        insert(key, value, ticker.getAsLong());
+        evict();
+    }
+
+    @Override
+    public void put(K key, T value, long ageNanos) {
+        insert(key, value, ticker.getAsLong() - ageNanos);
+        evict();
+    }
+
+    // Metemos todo el lote y recortamos una sola vez al final
+    @Override
+    public void putAll(Map<? extends K, ? extends T> entries) {
+        long now = ticker.getAsLong();
+        entries.forEach((key, value) -> insert(key, value, now));
+        evict();
+    }
+
+    private void insert(K key, T value, long now) {
+        if (sketch != null) {
+            sketch.increment(key);
+        }
+        stats.recordPut();
+        Node<K, T> node = cache.get(key);
+        if (node != null) {
+            notifyRemoval(node, RemovalCause.REPLACED);
+            int weight = weigh(key, value);
+            totalWeight += weight - node.weight;
+            node.weight = weight;
+            node.value = value;
+            node.writeTime = now;
+            node.version = ++nextVersion;
+            node.refreshing = false;
+            // Si venía de un refresco anticipado lo marcamos para contar los aciertos que nos ahorra
+            node.refreshedAhead = node.refreshAhead;
+            node.refreshAhead = false;
+            node.accessCount = 0;
+            onAccess(node);
+            return;
+        }
+
+        node = new Node<>(key, value, now);
+        node.version = ++nextVersion;
+        node.weight = weigh(key, value);
+        totalWeight += node.weight;
+        cache.put(key, node);
+        if (evictionPolicy == EvictionPolicy.LRU) {
+            probation.add(node, Region.PROBATION);
+        } else {
+            // Los nuevos entran en la ventana, el más antiguo de la ventana opta a la zona principal
+            window.add(node, Region.WINDOW);
+            if (window.size > windowSize) {
+                Node<K, T> candidate = window.first();
+                window.remove(candidate);
+                admit(candidate);
+            }
+        }
+    }
+
+    // Con LRU recortamos por número aquí, con TinyLFU ya lo hace la admisión. Después, por peso
+    private void evict() {
+        if (evictionPolicy == EvictionPolicy.LRU) {
+            while (cache.size() > cacheSize) {
+                removeNode(probation.first(), RemovalCause.SIZE);
+            }
+        }
+        evictByWeight();
+    }
+
+    // Expulsamos las más frías hasta volver a estar por debajo del peso máximo
+    private void evictByWeight() {
+        while (maximumWeight > 0 && totalWeight > maximumWeight) {
+            Node<K, T> victim = coldest();
+            if (victim == null) {
+                return;
+            }
+            removeNode(victim, RemovalCause.SIZE);
+        }
+    }
+
+    // Primero la zona probatoria, luego la ventana y por último la protegida
+    private Node<K, T> coldest() {
+        if (probation.first() != null) {
+            return probation.first();
+        }
+        return window.first() != null ? window.first() : protectedZone.first();
+    }
+
+    // Admisión de TinyLFU: el candidato solo entra si es más frecuente que la víctima
+    private void admit(Node<K, T> candidate) {
+        if (probation.size + protectedZone.size < mainSize) {
+            probation.add(candidate, Region.PROBATION);
+            return;
+        }
+        Node<K, T> victim = probation.first() != null ? probation.first() : protectedZone.first();
+        if (victim != null && sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+            removeNode(victim, RemovalCause.SIZE);
+            probation.add(candidate, Region.PROBATION);
+        } else {
+            cache.remove(candidate.key);
+            totalWeight -= candidate.weight;
+            notifyRemoval(candidate, RemovalCause.SIZE);
+        }
+    }
+
+    // Movemos el nodo al final de su lista, y en SLRU lo promocionamos de probatoria a protegida
+    private void onAccess(Node<K, T> node) {
+        switch (node.region) {
+            case WINDOW -> window.moveToLast(node);
+            case PROTECTED -> protectedZone.moveToLast(node);
+            case PROBATION -> {
+                if (evictionPolicy == EvictionPolicy.LRU) {
+                    probation.moveToLast(node);
+                } else {
+                    probation.remove(node);
+                    protectedZone.add(node, Region.PROTECTED);
+                    if (protectedZone.size > protectedSize) {
+                        Node<K, T> demoted = protectedZone.first();
+                        protectedZone.remove(demoted);
+                        probation.add(demoted, Region.PROBATION);
+                    }
+                }
+            }
+        }
+    }
+
+    private AccessOrder<K, T> zoneOf(Node<K, T> node) {
+        return switch (node.region) {
+            case WINDOW -> window;
+            case PROBATION -> probation;
+            case PROTECTED -> protectedZone;
+        };
+    }
+
+    private void removeNode(Node<K, T> node, RemovalCause cause) {
+        zoneOf(node).remove(node);
+        cache.remove(node.key);
+        totalWeight -= node.weight;
+        notifyRemoval(node, cause);
+    }
+
+    // Pasamos también la edad, TieredCache la necesita para bajar la entrada a L2 sin rejuvenecerla
+    private void notifyRemoval(Node<K, T> node, RemovalCause cause) {
+        if (cause.wasEvicted()) {
+            stats.recordEviction();
+        }
+        if (removalListeners.isEmpty()) {
+            return;
+        }
+        long ageNanos = ticker.getAsLong() - node.writeTime;
+        for (RemovalListener<K, T> listener : removalListeners) {
+            listener.onRemoval(node.key, node.value, cause, ageNanos);
+        }
     }
 
     @Override
     public void remove(K key) {
-        logger.debug("Eliminando de cache el valor de la clave: {}", key);
-        cache.remove(key);
+        Node<K, T> node = cache.get(key);
+        if (node != null) {
+            removeNode(node, RemovalCause.EXPLICIT);
+        }
     }
 
     @Override
     public void clear() {
-        logger.debug("Limpiando la cache");
+        if (!removalListeners.isEmpty()) {
+            cache.values().forEach(node -> notifyRemoval(node, RemovalCause.EXPLICIT));
+        }
         cache.clear();
+        totalWeight = 0;
+        window.clear();
+        probation.clear();
+        protectedZone.clear();
     }
 
     @Override
     public int size() {
-        logger.debug("Obteniendo el tamaño de la cache");
         return cache.size();
     }
 
+    // Peso total de las entradas, 0 si no hay weigher
+    public long weightedSize() {
+        return totalWeight;
+    }
+
+    /**
+     * Reduce la cache a una fracción de lo que ocupa ahora (por peso si hay weigher, si no por número),
+     * expulsando las entradas más frías. Se usa cuando falta memoria: perdemos aciertos en vez de quedarnos sin heap.
+     * Devuelve el número de entradas expulsadas.
+     */
+    public int shrink(double fraction) {
+        long target = (long) ((weigher != null ? totalWeight : cache.size()) * fraction);
+        int evicted = 0;
+        while ((weigher != null ? totalWeight : cache.size()) > target) {
+            Node<K, T> victim = coldest();
+            if (victim == null) {
+                break;
+            }
+            removeNode(victim, RemovalCause.SIZE);
+            evicted++;
+        }
+        return evicted;
+    }
+
+    // Recorremos las zonas del menos al más usado recientemente
+    private List<Node<K, T>> liveNodes() {
+        long now = ticker.getAsLong();
+        List<Node<K, T>> nodes = new ArrayList<>(cache.size());
+        for (AccessOrder<K, T> zone : List.of(window, probation, protectedZone)) {
+            for (Node<K, T> node = zone.head; node != null; node = node.next) {
+                if (!isExpired(node, now)) {
+                    nodes.add(node);
+                }
+            }
+        }
+        return nodes;
+    }
+
     @Override
     public Set<K> keys() {
-        logger.debug("Obteniendo las claves de la cache");
-        return cache.keySet();
+        Set<K> keys = new LinkedHashSet<>();
+        liveNodes().forEach(node -> keys.add(node.key));
+        return keys;
     }
 
     @Override
     public Collection<T> values() {
-        logger.debug("Obteniendo los valores de la cache");
-        return cache.values();
+        return liveNodes().stream().map(node -> node.value).toList();
+    }
+
+    @Override
+    public List<CacheEntry<K, T>> entries() {
+        long now = ticker.getAsLong();
+        return liveNodes().stream().map(node -> new CacheEntry<>(node.key, node.value, now - node.writeTime)).toList();
     }
 
     @Override
     public boolean containsKey(K key) {
-        logger.debug("Comprobando si existe la clave en la cache: {}", key);
-        return cache.containsKey(key);
+        Node<K, T> node = cache.get(key);
+        return node != null && !isExpired(node, ticker.getAsLong());
     }
 
     @Override
     public boolean containsValue(T value) {
-        logger.debug("Comprobando si existe el valor en la cache: {}", value);
-        return cache.containsValue(value);
+        return values().contains(value);
     }
 
     @Override
     public boolean isEmpty() {
-        logger.debug("Comprobando si la cache está vacía");
         return cache.isEmpty();
     }
 
     @Override
     public boolean isNotEmpty() {
-        logger.debug("Comprobando si la cache no está vacía");
         return !isEmpty();
     }
-}
\ No newline at end of file
+
+    /**
+     * Elimina las entradas caducadas y lanza el refresco anticipado de las más leídas que están a punto de caducar.
+     * Lo llama el limpiador en segundo plano, así no tenemos que recorrer la cache en cada acceso
+     * y las entradas populares se recargan aunque nadie las lea justo antes de caducar.
+     */
+    public void cleanUp() {
+        if (expireAfterWriteNanos > 0) {
+            long now = ticker.getAsLong();
+            List<Node<K, T>> expired = new ArrayList<>();
+            List<Node<K, T>> hot = new ArrayList<>();
+            for (Node<K, T> node : cache.values()) {
+                if (isExpired(node, now)) {
+                    expired.add(node);
+                } else if (shouldRefreshAhead(node, now)) {
+                    hot.add(node);
+                }
+            }
+            expired.forEach(node -> removeNode(node, RemovalCause.EXPIRED));
+            hot.forEach(this::refreshAhead);
+        }
+    }
+
+    @Override
+    public CacheStats stats() {
+        return stats.snapshot();
+    }
+
+    @Override
+    public void addRemovalListener(RemovalListener<K, T> listener) {
+        removalListeners.add(listener);
+    }
+
+    /**
+     * Aplica el resultado de un refresco, null si el elemento ya no existe.
+     * Solo si la entrada sigue siendo la que lo pidió: si mientras tanto se ha escrito o borrado la clave,
+     * lo que trae la recarga es anterior y no debe pisarla ni resucitarla.
+     */
+    void refreshed(K key, long version, T value) {
+        Node<K, T> node = cache.get(key);
+        if (node == null || node.version != version) {
+            return;
+        }
+        if (value != null) {
+            put(key, value);
+        } else {
+            removeNode(node, RemovalCause.EXPLICIT);
+        }
+    }
+
+    // Si la recarga falla, dejamos que se vuelva a intentar en el siguiente acceso
+    void refreshFailed(K key, long version) {
+        Node<K, T> node = cache.get(key);
+        if (node != null && node.version == version) {
+            node.refreshing = false;
+            node.refreshAhead = false;
+        }
+    }
+
+    private enum Region {
+        WINDOW, PROBATION, PROTECTED
+    }
+
+    private static final class Node<K, T> {
+        private final K key;
+        private T value;
+        private int weight;
+        private long writeTime;
+        private long version;
+        private boolean refreshing;
+        // Lecturas desde la última escritura, para saber si es de las más usadas
+        private int accessCount;
+        // Se está refrescando de forma anticipada / su valor actual viene de un refresco anticipado
+        private boolean refreshAhead;
+        private boolean refreshedAhead;
+        private Region region;
+        private Node<K, T> prev;
+        private Node<K, T> next;
+
+        private Node(K key, T value, long writeTime) {
+            this.key = key;
+            this.value = value;
+            this.writeTime = writeTime;
+        }
+    }
+
+    // Lista doblemente enlazada intrusiva: head es el menos usado recientemente y tail el más reciente
+    private static final class AccessOrder<K, T> {
+        private Node<K, T> head;
+        private Node<K, T> tail;
+        private int size;
+
+        private Node<K, T> first() {
+            return head;
+        }
+
+        private void add(Node<K, T> node, Region region) {
+            node.region = region;
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            size++;
+        }
+
+        private void remove(Node<K, T> node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            size--;
+        }
+
+        private void moveToLast(Node<K, T> node) {
+            if (node != tail) {
+                remove(node);
+                add(node, node.region);
+            }
+        }
+
+        private void clear() {
+            head = null;
+            tail = null;
+            size = 0;
+        }
+    }
+}
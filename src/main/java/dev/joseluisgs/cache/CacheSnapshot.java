@@ -0,0 +1,118 @@
+package dev.joseluisgs.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Foto de la cache en un fichero binario, para arrancar con la cache caliente.
+ * Se guardan las claves que hay en la cache (las más usadas según su política) y, si se quiere, sus valores.
+ * Formato: cabecera (marca, versión, fecha, si lleva valores y número de entradas) y después cada clave,
+ * y con valores también su edad en nanosegundos y el valor.
+ * Si la foto es más antigua que maxAge solo se usan las claves y los valores se vuelven a cargar con el cargador.
+ * Los valores recuperados conservan su edad (la que tenían más el tiempo que ha pasado), así no duran más que en la cache original.
+ */
+public class CacheSnapshot<T> {
+    private static final Logger logger = LoggerFactory.getLogger(CacheSnapshot.class);
+    private static final int MAGIC = 0x544E5343; // "TNSC"
+    static final int VERSION = 2;
+
+    private final Path file;
+    private final CacheCodec<T> codec;
+
+    public CacheSnapshot(Path file, CacheCodec<T> codec) {
+        this.file = file;
+        this.codec = codec;
+    }
+
+    /**
+     * Guarda la cache en el fichero. Se escribe en un temporal y se renombra, así nunca queda un fichero a medias.
+     * Devuelve el número de entradas guardadas.
+     */
+    public int save(Cache<Long, T> cache, boolean withValues) throws IOException {
+        // entries no cuenta como lectura, así guardar la foto no cambia las estadísticas ni lanza refrescos
+        List<CacheEntry<Long, T>> entries = cache.entries();
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(System.currentTimeMillis());
+            out.writeBoolean(withValues);
+            out.writeInt(entries.size());
+            for (CacheEntry<Long, T> entry : entries) {
+                out.writeLong(entry.key());
+                if (withValues) {
+                    out.writeLong(entry.ageNanos());
+                    codec.write(entry.value(), out);
+                }
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.debug("Guardada la foto de la cache con {} entradas en {}", entries.size(), file);
+        return entries.size();
+    }
+
+    /**
+     * Carga la foto en la cache. Los valores se meten directamente y las claves sin valor se cargan con el cargador.
+     * Si no hay fichero o no es válido, la cache se queda como está: arrancar en frío no es un error.
+     * Devuelve el número de entradas precargadas con valor.
+     */
+    public Mono<Integer> load(Cache<Long, T> cache, Duration maxAge, Function<Long, Mono<T>> loader) {
+        if (!Files.exists(file)) {
+            return Mono.just(0);
+        }
+        List<Long> pending = new ArrayList<>();
+        int loaded = 0;
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                logger.warn("La foto de la cache {} no es válida o es de otra versión, se ignora", file);
+                return Mono.just(0);
+            }
+            long savedAt = in.readLong();
+            boolean withValues = in.readBoolean();
+            long elapsedNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, System.currentTimeMillis() - savedAt));
+            boolean fresh = elapsedNanos <= maxAge.toNanos();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                long key = in.readLong();
+                long ageNanos = withValues ? in.readLong() : 0L;
+                T value = withValues ? codec.read(in) : null;
+                if (value != null && fresh) {
+                    cache.put(key, value, ageNanos + elapsedNanos);
+                    loaded++;
+                } else {
+                    pending.add(key);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("No se ha podido leer la foto de la cache {}", file, e);
+            return Mono.just(loaded);
+        }
+
+        int fromFile = loaded;
+        if (pending.isEmpty() || loader == null) {
+            return Mono.just(fromFile);
+        }
+        // Pocas cargas a la vez, para no saturar el origen al arrancar
+        return Flux.fromIterable(pending)
+                .flatMap(key -> loader.apply(key).doOnNext(value -> cache.put(key, value)), 4)
+                .count()
+                .map(count -> fromFile + count.intValue());
+    }
+}
@@ -0,0 +1,58 @@
+package dev.joseluisgs.cache;
+
+/**
+ * Foto inmutable de las estadísticas de una cache en un momento dado.
+ * Los tiempos de carga están en nanosegundos.
+ */
+public record CacheStats(
+        long hitCount,
+        long missCount,
+        long putCount,
+        long evictionCount,
+        long loadSuccessCount,
+        long loadFailureCount,
+        long totalLoadTime,
+        long refreshAheadCount,
+        long refreshAheadHitCount
+) {
+    public static final CacheStats EMPTY = new CacheStats(0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+    public long requestCount() {
+        return hitCount + missCount;
+    }
+
+    public double hitRate() {
+        long requests = requestCount();
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    public double missRate() {
+        long requests = requestCount();
+        return requests == 0 ? 0.0 : (double) missCount / requests;
+    }
+
+    // Tiempo medio de carga en nanosegundos
+    public double averageLoadPenalty() {
+        long loads = loadSuccessCount + loadFailureCount;
+        return loads == 0 ? 0.0 : (double) totalLoadTime / loads;
+    }
+
+    // Parte de los aciertos servidos por entradas que se refrescaron antes de caducar
+    public double refreshAheadHitRate() {
+        return hitCount == 0 ? 0.0 : (double) refreshAheadHitCount / hitCount;
+    }
+
+    public CacheStats plus(CacheStats other) {
+        return new CacheStats(
+                hitCount + other.hitCount,
+                missCount + other.missCount,
+                putCount + other.putCount,
+                evictionCount + other.evictionCount,
+                loadSuccessCount + other.loadSuccessCount,
+                loadFailureCount + other.loadFailureCount,
+                totalLoadTime + other.totalLoadTime,
+                refreshAheadCount + other.refreshAheadCount,
+                refreshAheadHitCount + other.refreshAheadHitCount
+        );
+    }
+}
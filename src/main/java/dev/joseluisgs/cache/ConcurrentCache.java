@@ -0,0 +1,409 @@
+package dev.joseluisgs.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Cache concurrente con bloqueo por segmentos (lock striping).
+ * Las claves se reparten entre varios segmentos, cada uno es una CacheGeneric (LRU) protegida por su propio cerrojo.
+ * Así los hilos que acceden a claves de segmentos distintos no compiten entre sí y el LRU es aproximado (por segmento).
+ * Si se configura caducidad, un limpiador en segundo plano elimina las entradas caducadas,
+ * y si se configura refresco y un cargador, las entradas se recargan en segundo plano sin bloquear a los lectores.
+ * Con refresco anticipado, las entradas más leídas se recargan antes de caducar, así nunca fallan.
+ */
+public class ConcurrentCache<K, T> implements Cache<K, T> {
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrentCache.class);
+
+    private final CacheGeneric<K, T>[] segments;
+    private final ReentrantLock[] locks;
+    private final int segmentMask;
+    // Cargador para el refresco, Mono vacío si el elemento ya no existe
+    private final Function<K, Mono<T>> loader;
+    private final Disposable cleaner;
+    private final Scheduler refreshScheduler;
+    // Contadores y oyentes compartidos por todos los segmentos
+    private final StatsCounter stats = new StatsCounter();
+    private final List<RemovalListener<K, T>> removalListeners = new CopyOnWriteArrayList<>();
+
+    public ConcurrentCache(int cacheSize) {
+        this(cacheSize, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    public ConcurrentCache(int cacheSize, int concurrencyLevel) {
+        this(CacheConfig.builder().maximumSize(cacheSize).concurrencyLevel(concurrencyLevel).build());
+    }
+
+    public ConcurrentCache(CacheConfig config) {
+        this(config, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ConcurrentCache(CacheConfig config, Function<K, Mono<T>> loader) {
+        int cacheSize = config.getMaximumSize();
+        if (cacheSize <= 0) {
+            throw new IllegalArgumentException("El tamaño de la cache debe ser mayor que 0");
+        }
+        this.loader = loader;
+        this.refreshScheduler = config.getRefreshScheduler();
+        // Nunca más segmentos que elementos, y siempre potencia de 2 para poder usar una máscara
+        int segmentCount = Integer.highestOneBit(Math.max(1, Math.min(config.getConcurrencyLevel(), cacheSize)));
+        this.segmentMask = segmentCount - 1;
+        this.segments = new CacheGeneric[segmentCount];
+        this.locks = new ReentrantLock[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            // Repartimos el tamaño de forma exacta entre los segmentos
+            int segmentSize = cacheSize / segmentCount + (i < cacheSize % segmentCount ? 1 : 0);
+            long segmentWeight = config.getMaximumWeight() / segmentCount + (i < config.getMaximumWeight() % segmentCount ? 1 : 0);
+            var segmentConfig = config.toBuilder().maximumSize(segmentSize).maximumWeight(segmentWeight).build();
+            segments[i] = new CacheGeneric<>(segmentConfig, loader != null ? this::refresh : null, stats, removalListeners);
+            locks[i] = new ReentrantLock();
+        }
+
+        // Limpiador en segundo plano de entradas caducadas. Sin intervalo no hay limpiador y las caducadas se quitan al leerlas,
+        // con periodo 0 Reactor relanzaría la tarea sin parar y tendríamos los cerrojos siempre cogidos
+        Duration cleanupInterval = config.getCleanupInterval();
+        if (config.getExpireAfterWrite() != null && cleanupInterval != null && cleanupInterval.toMillis() > 0) {
+            long interval = cleanupInterval.toMillis();
+            this.cleaner = Schedulers.parallel().schedulePeriodically(this::cleanUp, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            this.cleaner = null;
+        }
+    }
+
+    // Dispersamos el hash para que los bits altos también influyan en el segmento elegido
+    private int segmentFor(Object key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & segmentMask;
+    }
+
+    @Override
+    public T get(K key) {
+        int index = segmentFor(key);
+        locks[index].lock();
+        try {
+            return segments[index].get(key);
+        } finally {
+            locks[index].unlock();
+        }
+    }
+
+    @Override
+    public void put(K key, T value) {
+        int index = segmentFor(key);
+        locks[index].lock();
+        try {
+            segments[index].put(key, value);
+        } finally {
+            locks[index].unlock();
+        }
+    }
+
+    @Override
+    public void put(K key, T value, long ageNanos) {
+        int index = segmentFor(key);
+        locks[index].lock();
+        try {
+            segments[index].put(key, value, ageNanos);
+        } finally {
+            locks[index].unlock();
+        }
+    }
+
+    // Agrupamos las claves por segmento para coger cada cerrojo una sola vez por lote
+    private List<List<K>> groupBySegment(Collection<? extends K> keys) {
+        List<List<K>> groups = new ArrayList<>(segments.length);
+        for (int i = 0; i < segments.length; i++) {
+            groups.add(new ArrayList<>());
+        }
+        for (K key : keys) {
+            groups.get(segmentFor(key)).add(key);
+        }
+        return groups;
+    }
+
+    @Override
+    public Map<K, T> getAll(Collection<? extends K> keys) {
+        Map<K, T> found = new HashMap<>();
+        List<List<K>> groups = groupBySegment(keys);
+        for (int i = 0; i < segments.length; i++) {
+            if (groups.get(i).isEmpty()) {
+                continue;
+            }
+            locks[i].lock();
+            try {
+                found.putAll(segments[i].getAll(groups.get(i)));
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends T> entries) {
+        List<List<K>> groups = groupBySegment(entries.keySet());
+        for (int i = 0; i < segments.length; i++) {
+            if (groups.get(i).isEmpty()) {
+                continue;
+            }
+            Map<K, T> batch = new LinkedHashMap<>();
+            groups.get(i).forEach(key -> batch.put(key, entries.get(key)));
+            locks[i].lock();
+            try {
+                segments[i].putAll(batch);
+            } finally {
+                locks[i].unlock();
+            }
+        }
+    }
+
+    // Se calcula con el cerrojo del segmento cogido, así dos hilos no calculan la misma clave.
+    // Por eso la función debe ser rápida y no usar la cache
+    @Override
+    public T computeIfAbsent(K key, Function<? super K, ? extends T> mappingFunction) {
+        int index = segmentFor(key);
+        locks[index].lock();
+        try {
+            return segments[index].computeIfAbsent(key, mappingFunction);
+        } finally {
+            locks[index].unlock();
+        }
+    }
+
+    @Override
+    public void invalidateAll(Collection<? extends K> keys) {
+        List<List<K>> groups = groupBySegment(keys);
+        for (int i = 0; i < segments.length; i++) {
+            if (groups.get(i).isEmpty()) {
+                continue;
+            }
+            locks[i].lock();
+            try {
+                segments[i].invalidateAll(groups.get(i));
+            } finally {
+                locks[i].unlock();
+            }
+        }
+    }
+
+    @Override
+    public void remove(K key) {
+        int index = segmentFor(key);
+        locks[index].lock();
+        try {
+            segments[index].remove(key);
+        } finally {
+            locks[index].unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < segments.length; i++) {
+            locks[i].lock();
+            try {
+                segments[i].clear();
+            } finally {
+                locks[i].unlock();
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < segments.length; i++) {
+            locks[i].lock();
+            try {
+                size += segments[i].size();
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        return size;
+    }
+
+    // Peso total de todos los segmentos, 0 si no hay weigher
+    public long weightedSize() {
+        long weight = 0;
+        for (int i = 0; i < segments.length; i++) {
+            locks[i].lock();
+            try {
+                weight += segments[i].weightedSize();
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        return weight;
+    }
+
+    // Reduce cada segmento a la fracción indicada, un segmento cada vez para no parar a todos los lectores
+    public int shrink(double fraction) {
+        int evicted = 0;
+        for (int i = 0; i < segments.length; i++) {
+            locks[i].lock();
+            try {
+                evicted += segments[i].shrink(fraction);
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        return evicted;
+    }
+
+    // Devolvemos copias para no exponer las estructuras internas fuera del cerrojo
+    @Override
+    public Set<K> keys() {
+        Set<K> keys = new HashSet<>();
+        for (int i = 0; i < segments.length; i++) {
+            locks[i].lock();
+            try {
+                keys.addAll(segments[i].keys());
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        return keys;
+    }
+
+    @Override
+    public Collection<T> values() {
+        Collection<T> values = new ArrayList<>();
+        for (int i = 0; i < segments.length; i++) {
+            locks[i].lock();
+            try {
+                values.addAll(segments[i].values());
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public List<CacheEntry<K, T>> entries() {
+        List<CacheEntry<K, T>> entries = new ArrayList<>();
+        for (int i = 0; i < segments.length; i++) {
+            locks[i].lock();
+            try {
+                entries.addAll(segments[i].entries());
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        int index = segmentFor(key);
+        locks[index].lock();
+        try {
+            return segments[index].containsKey(key);
+        } finally {
+            locks[index].unlock();
+        }
+    }
+
+    @Override
+    public boolean containsValue(T value) {
+        for (int i = 0; i < segments.length; i++) {
+            locks[i].lock();
+            try {
+                if (segments[i].containsValue(value)) {
+                    return true;
+                }
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // Elimina las entradas caducadas de todos los segmentos, un segmento cada vez
+    public void cleanUp() {
+        for (int i = 0; i < segments.length; i++) {
+            locks[i].lock();
+            try {
+                segments[i].cleanUp();
+            } finally {
+                locks[i].unlock();
+            }
+        }
+    }
+
+    @Override
+    public CacheStats stats() {
+        return stats.snapshot();
+    }
+
+    @Override
+    public void addRemovalListener(RemovalListener<K, T> listener) {
+        removalListeners.add(listener);
+    }
+
+    // Paramos el limpiador en segundo plano
+    public void close() {
+        if (cleaner != null) {
+            cleaner.dispose();
+        }
+    }
+
+    // Se llama con el cerrojo del segmento cogido, por eso la recarga se lanza de forma asíncrona.
+    // El resultado se aplica con el cerrojo y solo si la entrada sigue en la versión que pidió el refresco
+    private void refresh(K key, long version) {
+        long start = System.nanoTime();
+        Mono.defer(() -> loader.apply(key))
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .subscribeOn(refreshScheduler)
+                .subscribe(
+                        // Si no hay valor, el elemento ya no existe y lo quitamos
+                        value -> {
+                            stats.recordLoadSuccess(System.nanoTime() - start);
+                            withSegment(key, segment -> segment.refreshed(key, version, value.orElse(null)));
+                        },
+                        error -> {
+                            stats.recordLoadFailure(System.nanoTime() - start);
+                            logger.error("Error refrescando la clave: {}", key, error);
+                            withSegment(key, segment -> segment.refreshFailed(key, version));
+                        }
+                );
+    }
+
+    private void withSegment(K key, Consumer<CacheGeneric<K, T>> action) {
+        int index = segmentFor(key);
+        locks[index].lock();
+        try {
+            action.accept(segments[index]);
+        } finally {
+            locks[index].unlock();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package dev.joseluisgs.cache;
+
+/**
+ * Política de expulsión de la cache.
+ * LRU: se expulsa el elemento usado hace más tiempo.
+ * TINY_LFU: W-TinyLFU, una ventana LRU pequeña seguida de una zona principal SLRU,
+ * y un filtro de frecuencias que decide si un elemento nuevo merece entrar en lugar de la víctima.
+ * Así un recorrido completo o una importación masiva no expulsan a los elementos más usados.
+ */
+public enum EvictionPolicy {
+    LRU,
+    TINY_LFU
+}
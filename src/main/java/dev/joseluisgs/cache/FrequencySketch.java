@@ -0,0 +1,110 @@
+package dev.joseluisgs.cache;
+
+import java.util.Arrays;
+
+/**
+ * Estimador de frecuencias para la política TinyLFU.
+ * Es un Count-Min Sketch con contadores de 4 bits (16 por cada long) y 4 funciones hash,
+ * precedido de un doorkeeper (filtro de Bloom) para que los elementos vistos una sola vez no ocupen contadores.
+ * Cada cierto número de accesos los contadores se dividen a la mitad (envejecimiento),
+ * así las frecuencias antiguas pierden peso y el sketch se adapta a los cambios de popularidad.
+ */
+class FrequencySketch<K> {
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+
+    private final long[] table;
+    private final int counterMask;
+    private final long[] doorkeeper;
+    private final int doorkeeperMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int maximumSize) {
+        int size = ceilingPowerOfTwo(Math.max(maximumSize, 8));
+        this.table = new long[size];
+        // 16 contadores por long
+        this.counterMask = size * 16 - 1;
+        // 8 bits por elemento esperado en el doorkeeper
+        int doorkeeperBits = ceilingPowerOfTwo(size * 8);
+        this.doorkeeper = new long[Math.max(1, doorkeeperBits / 64)];
+        this.doorkeeperMask = doorkeeperBits - 1;
+        this.sampleSize = 10 * size;
+    }
+
+    private static int ceilingPowerOfTwo(int x) {
+        return 1 << (32 - Integer.numberOfLeadingZeros(x - 1));
+    }
+
+    private static int hash(Object key, int depth) {
+        long h = (key.hashCode() + SEEDS[depth]) * SEEDS[(depth + 1) & 3];
+        h ^= h >>> 29;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // Frecuencia estimada: el mínimo de los contadores más uno si el doorkeeper ya lo ha visto
+    int frequency(K key) {
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < 4; i++) {
+            frequency = Math.min(frequency, counter(hash(key, i) & counterMask));
+        }
+        return frequency + (inDoorkeeper(key) ? 1 : 0);
+    }
+
+    // Registra un acceso. La primera vez solo se anota en el doorkeeper
+    void increment(K key) {
+        if (!inDoorkeeper(key)) {
+            addToDoorkeeper(key);
+        } else {
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                added |= incrementCounter(hash(key, i) & counterMask);
+            }
+            if (!added) {
+                return;
+            }
+        }
+        if (++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    private int counter(int index) {
+        int offset = (index & 15) << 2;
+        return (int) ((table[index >>> 4] >>> offset) & 0xfL);
+    }
+
+    private boolean incrementCounter(int index) {
+        int offset = (index & 15) << 2;
+        long mask = 0xfL << offset;
+        int slot = index >>> 4;
+        if ((table[slot] & mask) != mask) {
+            table[slot] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean inDoorkeeper(K key) {
+        int h1 = hash(key, 0) & doorkeeperMask;
+        int h2 = hash(key, 2) & doorkeeperMask;
+        return (doorkeeper[h1 >>> 6] & (1L << h1)) != 0 && (doorkeeper[h2 >>> 6] & (1L << h2)) != 0;
+    }
+
+    private void addToDoorkeeper(K key) {
+        int h1 = hash(key, 0) & doorkeeperMask;
+        int h2 = hash(key, 2) & doorkeeperMask;
+        doorkeeper[h1 >>> 6] |= 1L << h1;
+        doorkeeper[h2 >>> 6] |= 1L << h2;
+    }
+
+    // Envejecimiento: dividimos todos los contadores a la mitad y vaciamos el doorkeeper
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        Arrays.fill(doorkeeper, 0L);
+        additions /= 2;
+    }
+}
@@ -0,0 +1,442 @@
+package dev.joseluisgs.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache con claves long primitivas, pensada para cachear cientos de miles de elementos por su id.
+ * Es una tabla hash de direccionamiento abierto (sondeo lineal) sobre arrays paralelos, sin nodos ni claves en caja,
+ * así get(long) y put(long, T) no reservan memoria y cada entrada ocupa poco más que su clave y la referencia al valor.
+ * La expulsión es CLOCK: cada entrada tiene un bit de referencia que se marca al leerla,
+ * y la manecilla recorre la tabla dando una segunda oportunidad a las marcadas.
+ * Las lecturas son optimistas con StampedLock, solo se bloquea si coinciden con una escritura.
+ * Admite caducidad (se comprueba al leer y en cleanUp), pero no el refresco en segundo plano.
+ */
+public class LongCache<T> implements Cache<Long, T> {
+    // Como mucho media tabla ocupada, así las secuencias de sondeo son cortas
+    private static final int LOAD_FACTOR_INVERSE = 2;
+
+    private final int maximumSize;
+    private final int mask;
+    private final long[] keys;
+    // Un hueco está libre si su valor es null
+    private final Object[] values;
+    private final boolean[] referenced;
+    // Momento de escritura de cada entrada, null si no hay caducidad
+    private final long[] writeTimes;
+    private final long expireAfterWriteNanos;
+    private final LongSupplier ticker;
+    private final StampedLock lock = new StampedLock();
+    private final StatsCounter stats = new StatsCounter();
+    private final List<RemovalListener<Long, T>> removalListeners = new CopyOnWriteArrayList<>();
+    private int size;
+    private int hand;
+
+    public LongCache(int maximumSize) {
+        this(CacheConfig.builder().maximumSize(maximumSize).build());
+    }
+
+    public LongCache(CacheConfig config) {
+        this.maximumSize = config.getMaximumSize();
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("El tamaño de la cache debe ser mayor que 0");
+        }
+        int capacity = Integer.highestOneBit(Math.max(2, maximumSize * LOAD_FACTOR_INVERSE - 1)) << 1;
+        this.mask = capacity - 1;
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.referenced = new boolean[capacity];
+        this.expireAfterWriteNanos = config.getExpireAfterWrite() != null ? config.getExpireAfterWrite().toNanos() : 0L;
+        this.writeTimes = expireAfterWriteNanos > 0 ? new long[capacity] : null;
+        this.ticker = config.getTicker();
+    }
+
+    // Mezclamos los bits para que ids consecutivos no acaben en huecos consecutivos
+    private int slotFor(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    // Posición de la clave o -1. Siempre hay huecos libres, así que el sondeo termina
+    private int indexOf(long key) {
+        int slot = slotFor(key);
+        for (int probes = 0; probes <= mask; probes++) {
+            if (values[slot] == null) {
+                return -1;
+            }
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private boolean isExpired(int slot, long now) {
+        return writeTimes != null && now - writeTimes[slot] >= expireAfterWriteNanos;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(long key) {
+        long stamp = lock.tryOptimisticRead();
+        int slot = indexOf(key);
+        Object value = slot >= 0 ? values[slot] : null;
+        boolean expired = slot >= 0 && isExpired(slot, ticker.getAsLong());
+        if (!lock.validate(stamp)) {
+            // Ha habido una escritura mientras leíamos, repetimos con el cerrojo de lectura
+            stamp = lock.readLock();
+            try {
+                slot = indexOf(key);
+                value = slot >= 0 ? values[slot] : null;
+                expired = slot >= 0 && isExpired(slot, ticker.getAsLong());
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        if (value == null) {
+            stats.recordMiss();
+            return null;
+        }
+        if (expired) {
+            expire(key);
+            stats.recordMiss();
+            return null;
+        }
+        // Carrera benigna: en el peor caso se pierde una marca y la entrada tiene una oportunidad menos
+        referenced[slot] = true;
+        stats.recordHit();
+        return (T) value;
+    }
+
+    @Override
+    public T get(Long key) {
+        return get(key.longValue());
+    }
+
+    public void put(long key, T value) {
+        if (value == null) {
+            throw new NullPointerException("La cache no admite valores nulos");
+        }
+        long stamp = lock.writeLock();
+        try {
+            insert(key, value, ticker.getAsLong());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Todo el lote con un solo cerrojo de escritura
+    @Override
+    public void putAll(Map<? extends Long, ? extends T> entries) {
+        for (T value : entries.values()) {
+            if (value == null) {
+                throw new NullPointerException("La cache no admite valores nulos");
+            }
+        }
+        long stamp = lock.writeLock();
+        try {
+            long now = ticker.getAsLong();
+            entries.forEach((key, value) -> insert(key, value, now));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Se llama con el cerrojo de escritura cogido
+    private void insert(long key, T value, long now) {
+        stats.recordPut();
+        int slot = indexOf(key);
+        if (slot >= 0) {
+            notifyRemoval(key, value(slot), RemovalCause.REPLACED);
+        } else {
+            if (size >= maximumSize) {
+                evict();
+            }
+            slot = slotFor(key);
+            while (values[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            // Las nuevas entran sin marcar, solo las que se leen ganan la segunda oportunidad
+            referenced[slot] = false;
+            size++;
+        }
+        values[slot] = value;
+        if (writeTimes != null) {
+            writeTimes[slot] = now;
+        }
+    }
+
+    @Override
+    public void put(Long key, T value) {
+        put(key.longValue(), value);
+    }
+
+    @Override
+    public void put(Long key, T value, long ageNanos) {
+        if (value == null) {
+            throw new NullPointerException("La cache no admite valores nulos");
+        }
+        long stamp = lock.writeLock();
+        try {
+            insert(key, value, ticker.getAsLong() - ageNanos);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // CLOCK: avanzamos la manecilla quitando marcas hasta dar con una entrada sin marcar
+    private void evict() {
+        while (true) {
+            if (values[hand] != null) {
+                if (referenced[hand]) {
+                    referenced[hand] = false;
+                } else {
+                    long key = keys[hand];
+                    T value = value(hand);
+                    deleteSlot(hand);
+                    notifyRemoval(key, value, RemovalCause.SIZE);
+                    // No avanzamos: el borrado puede haber traído otra entrada a este hueco
+                    return;
+                }
+            }
+            hand = (hand + 1) & mask;
+        }
+    }
+
+    // Borrado con desplazamiento hacia atrás, así no hacen falta lápidas y el sondeo sigue siendo corto
+    private void deleteSlot(int slot) {
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (values[next] != null) {
+            int ideal = slotFor(keys[next]);
+            // Solo se mueve si su posición ideal no está entre el hueco y su posición actual
+            if (((next - ideal) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                referenced[hole] = referenced[next];
+                if (writeTimes != null) {
+                    writeTimes[hole] = writeTimes[next];
+                }
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[hole] = null;
+        referenced[hole] = false;
+        size--;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T value(int slot) {
+        return (T) values[slot];
+    }
+
+    private void notifyRemoval(long key, T value, RemovalCause cause) {
+        if (cause.wasEvicted()) {
+            stats.recordEviction();
+        }
+        for (RemovalListener<Long, T> listener : removalListeners) {
+            listener.onRemoval(key, value, cause);
+        }
+    }
+
+    private void expire(long key) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = indexOf(key);
+            // Puede que otro hilo ya la haya quitado o reescrito
+            if (slot >= 0 && isExpired(slot, ticker.getAsLong())) {
+                T value = value(slot);
+                deleteSlot(slot);
+                notifyRemoval(key, value, RemovalCause.EXPIRED);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void remove(long key) {
+        long stamp = lock.writeLock();
+        try {
+            delete(key);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void invalidateAll(Collection<? extends Long> keys) {
+        long stamp = lock.writeLock();
+        try {
+            keys.forEach(this::delete);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Se llama con el cerrojo de escritura cogido
+    private void delete(long key) {
+        int slot = indexOf(key);
+        if (slot >= 0) {
+            T value = value(slot);
+            deleteSlot(slot);
+            notifyRemoval(key, value, RemovalCause.EXPLICIT);
+        }
+    }
+
+    @Override
+    public void remove(Long key) {
+        remove(key.longValue());
+    }
+
+    @Override
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            for (int slot = 0; slot <= mask; slot++) {
+                if (values[slot] != null) {
+                    notifyRemoval(keys[slot], value(slot), RemovalCause.EXPLICIT);
+                    values[slot] = null;
+                    referenced[slot] = false;
+                }
+            }
+            size = 0;
+            hand = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Set<Long> keys() {
+        long stamp = lock.readLock();
+        try {
+            long now = ticker.getAsLong();
+            Set<Long> result = new HashSet<>();
+            for (int slot = 0; slot <= mask; slot++) {
+                if (values[slot] != null && !isExpired(slot, now)) {
+                    result.add(keys[slot]);
+                }
+            }
+            return result;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Collection<T> values() {
+        long stamp = lock.readLock();
+        try {
+            long now = ticker.getAsLong();
+            List<T> result = new ArrayList<>(size);
+            for (int slot = 0; slot <= mask; slot++) {
+                if (values[slot] != null && !isExpired(slot, now)) {
+                    result.add(value(slot));
+                }
+            }
+            return result;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public List<CacheEntry<Long, T>> entries() {
+        long stamp = lock.readLock();
+        try {
+            long now = ticker.getAsLong();
+            List<CacheEntry<Long, T>> result = new ArrayList<>(size);
+            for (int slot = 0; slot <= mask; slot++) {
+                if (values[slot] != null && !isExpired(slot, now)) {
+                    // Sin caducidad no guardamos el momento de escritura, la edad no importa
+                    result.add(new CacheEntry<>(keys[slot], value(slot), writeTimes != null ? now - writeTimes[slot] : 0L));
+                }
+            }
+            return result;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public boolean containsKey(long key) {
+        long stamp = lock.readLock();
+        try {
+            int slot = indexOf(key);
+            return slot >= 0 && !isExpired(slot, ticker.getAsLong());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public boolean containsKey(Long key) {
+        return containsKey(key.longValue());
+    }
+
+    @Override
+    public boolean containsValue(T value) {
+        return values().contains(value);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Elimina las entradas caducadas. No es obligatorio llamarlo,
+     * las caducadas también se quitan al leerlas o las expulsa la manecilla.
+     */
+    public void cleanUp() {
+        if (writeTimes == null) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            long now = ticker.getAsLong();
+            int slot = 0;
+            while (slot <= mask) {
+                if (values[slot] != null && isExpired(slot, now)) {
+                    long key = keys[slot];
+                    T value = value(slot);
+                    deleteSlot(slot);
+                    notifyRemoval(key, value, RemovalCause.EXPIRED);
+                    // Revisamos de nuevo el mismo hueco por si el borrado ha movido otra entrada aquí
+                } else {
+                    slot++;
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public CacheStats stats() {
+        return stats.snapshot();
+    }
+
+    @Override
+    public void addRemovalListener(RemovalListener<Long, T> listener) {
+        removalListeners.add(listener);
+    }
+}
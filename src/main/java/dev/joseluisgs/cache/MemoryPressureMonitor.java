@@ -0,0 +1,66 @@
+package dev.joseluisgs.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Vigila el heap y avisa cuando, después de una recolección, sigue ocupado por encima del umbral.
+ * Usamos el umbral de uso tras la recolección de MemoryPoolMXBean: el uso normal sube y baja con cada GC,
+ * pero si tras recolectar sigue alto es que de verdad falta memoria.
+ * Lo normal es reducir la cache en el aviso, así se pierden aciertos en lugar de acabar en OutOfMemoryError.
+ */
+public class MemoryPressureMonitor implements NotificationListener, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(MemoryPressureMonitor.class);
+
+    private final Runnable onPressure;
+    private final List<MemoryPoolMXBean> pools = new ArrayList<>();
+
+    /**
+     * @param threshold  fracción del máximo de cada zona del heap (por ejemplo 0.8)
+     * @param onPressure qué hacer cuando se supera, se ejecuta en el hilo de notificaciones de la JVM
+     */
+    public MemoryPressureMonitor(double threshold, Runnable onPressure) {
+        if (threshold <= 0 || threshold >= 1) {
+            throw new IllegalArgumentException("El umbral de memoria debe estar entre 0 y 1");
+        }
+        this.onPressure = onPressure;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            long max = pool.getUsage().getMax();
+            if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported() && max > 0) {
+                pool.setCollectionUsageThreshold((long) (max * threshold));
+                pools.add(pool);
+            }
+        }
+        ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener(this, null, null);
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType())) {
+            logger.warn("Memoria por encima del umbral tras la recolección, reduciendo la cache");
+            onPressure.run();
+        }
+    }
+
+    // Dejamos de escuchar y quitamos los umbrales (0 los desactiva)
+    @Override
+    public void close() {
+        try {
+            ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).removeNotificationListener(this);
+        } catch (ListenerNotFoundException e) {
+            logger.debug("El vigilante de memoria ya estaba quitado");
+        }
+        pools.forEach(pool -> pool.setCollectionUsageThreshold(0));
+    }
+}
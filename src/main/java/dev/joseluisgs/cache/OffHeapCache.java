@@ -0,0 +1,367 @@
+package dev.joseluisgs.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache fuera del heap: los valores se guardan serializados en bloques (slabs) de memoria directa,
+ * así no cuentan para el recolector de basura y solo el índice (id -> dirección) vive en el heap.
+ * Los bloques forman un anillo en el que se escribe siempre al final (como un log):
+ * reescribir un elemento añade un registro nuevo, y cuando el anillo da la vuelta se vacía el bloque más antiguo
+ * entero, expulsando los elementos que aún apuntaban a él (FIFO por bloques).
+ * Cada registro es: clave (long), longitud (int), momento de escritura (long) y los bytes del valor.
+ * Con expireAfterWrite las entradas caducadas se descartan al leerlas (no hay limpiador, el anillo ya recicla los bloques).
+ * Cada lectura deserializa un objeto nuevo, por eso está pensada como segundo nivel detrás de una cache en el heap.
+ */
+public class OffHeapCache<T> implements Cache<Long, T> {
+    private static final int WRITE_TIME_OFFSET = Long.BYTES + Integer.BYTES;
+    private static final int HEADER_SIZE = WRITE_TIME_OFFSET + Long.BYTES;
+
+    private final ByteBuffer[] slabs;
+    private final int slabSize;
+    private final CacheCodec<T> codec;
+    // Caducidad en nanosegundos, 0 si no se usa
+    private final long expireAfterWriteNanos;
+    private final LongSupplier ticker;
+    // Dirección del último registro de cada clave: número de bloque * slabSize + posición
+    private final Map<Long, Long> index = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final StatsCounter stats = new StatsCounter();
+    private final List<RemovalListener<Long, T>> removalListeners = new CopyOnWriteArrayList<>();
+    private int currentSlab;
+    private int writeOffset;
+
+    public OffHeapCache(long capacityBytes, int slabSize, CacheCodec<T> codec) {
+        this(capacityBytes, slabSize, codec, CacheConfig.builder().build());
+    }
+
+    // De la configuración solo se usan la caducidad y el reloj, el tamaño lo marcan los bloques
+    public OffHeapCache(long capacityBytes, int slabSize, CacheCodec<T> codec, CacheConfig config) {
+        int slabCount = (int) Math.max(2, capacityBytes / slabSize);
+        this.slabs = new ByteBuffer[slabCount];
+        for (int i = 0; i < slabCount; i++) {
+            slabs[i] = ByteBuffer.allocateDirect(slabSize);
+        }
+        this.slabSize = slabSize;
+        this.codec = codec;
+        this.expireAfterWriteNanos = config.getExpireAfterWrite() != null ? config.getExpireAfterWrite().toNanos() : 0L;
+        this.ticker = config.getTicker();
+    }
+
+    private long address(int slab, int offset) {
+        return (long) slab * slabSize + offset;
+    }
+
+    private byte[] serialize(T value) {
+        var bytes = new ByteArrayOutputStream(128);
+        try (var out = new DataOutputStream(bytes)) {
+            codec.write(value, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private T deserialize(byte[] bytes) {
+        try (var in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            return codec.read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Lecturas absolutas, no mueven la posición del buffer y se pueden hacer a la vez con el cerrojo de lectura
+    private byte[] readRecord(long address) {
+        ByteBuffer slab = slabs[(int) (address / slabSize)];
+        int offset = (int) (address % slabSize);
+        byte[] bytes = new byte[slab.getInt(offset + Long.BYTES)];
+        slab.get(offset + HEADER_SIZE, bytes);
+        return bytes;
+    }
+
+    private long writeTime(long address) {
+        return slabs[(int) (address / slabSize)].getLong((int) (address % slabSize) + WRITE_TIME_OFFSET);
+    }
+
+    private boolean isExpired(long address, long now) {
+        return expireAfterWriteNanos > 0 && now - writeTime(address) >= expireAfterWriteNanos;
+    }
+
+    @Override
+    public T get(Long key) {
+        CacheEntry<Long, T> entry = getEntry(key);
+        return entry != null ? entry.value() : null;
+    }
+
+    /**
+     * Como get, pero con la edad de la entrada. TieredCache la usa para subirla a L1 sin rejuvenecerla.
+     */
+    public CacheEntry<Long, T> getEntry(Long key) {
+        byte[] bytes;
+        long address;
+        long ageNanos;
+        lock.readLock().lock();
+        try {
+            Long found = index.get(key);
+            if (found == null) {
+                stats.recordMiss();
+                return null;
+            }
+            address = found;
+            ageNanos = ticker.getAsLong() - writeTime(address);
+            bytes = expireAfterWriteNanos > 0 && ageNanos >= expireAfterWriteNanos ? null : readRecord(address);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (bytes == null) {
+            expire(key, address);
+            stats.recordMiss();
+            return null;
+        }
+        stats.recordHit();
+        // Deserializamos fuera del cerrojo
+        return new CacheEntry<>(key, deserialize(bytes), ageNanos);
+    }
+
+    // Para quitarla hace falta el cerrojo de escritura, solo si nadie la ha reescrito mientras tanto
+    private void expire(Long key, long address) {
+        lock.writeLock().lock();
+        try {
+            if (index.remove(key, address)) {
+                stats.recordEviction();
+                if (!removalListeners.isEmpty()) {
+                    notifyRemoval(key, deserialize(readRecord(address)), RemovalCause.EXPIRED);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void put(Long key, T value) {
+        put(key, value, 0L);
+    }
+
+    @Override
+    public void put(Long key, T value, long ageNanos) {
+        if (expireAfterWriteNanos > 0 && ageNanos >= expireAfterWriteNanos) {
+            // Ya ha caducado, no lo guardamos
+            remove(key);
+            return;
+        }
+        byte[] bytes = serialize(value);
+        int recordSize = HEADER_SIZE + bytes.length;
+        if (recordSize > slabSize) {
+            // No cabe en un bloque, no lo guardamos
+            remove(key);
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            stats.recordPut();
+            if (writeOffset + recordSize > slabSize) {
+                nextSlab();
+            }
+            ByteBuffer slab = slabs[currentSlab];
+            slab.putLong(writeOffset, key);
+            slab.putInt(writeOffset + Long.BYTES, bytes.length);
+            slab.putLong(writeOffset + WRITE_TIME_OFFSET, ticker.getAsLong() - ageNanos);
+            slab.put(writeOffset + HEADER_SIZE, bytes);
+            Long previous = index.put(key, address(currentSlab, writeOffset));
+            writeOffset += recordSize;
+            if (previous != null && !removalListeners.isEmpty()) {
+                notifyRemoval(key, deserialize(readRecord(previous)), RemovalCause.REPLACED);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Pasamos al siguiente bloque del anillo y expulsamos lo que quedaba vivo en él
+    private void nextSlab() {
+        // Marcamos el final de los registros del bloque que cerramos
+        if (writeOffset + HEADER_SIZE <= slabSize) {
+            slabs[currentSlab].putInt(writeOffset + Long.BYTES, -1);
+        }
+        currentSlab = (currentSlab + 1) % slabs.length;
+        writeOffset = 0;
+        evictSlab(currentSlab);
+    }
+
+    private void evictSlab(int slabIndex) {
+        ByteBuffer slab = slabs[slabIndex];
+        int offset = 0;
+        while (offset + HEADER_SIZE <= slabSize) {
+            int length = slab.getInt(offset + Long.BYTES);
+            if (length <= 0) {
+                break;
+            }
+            long key = slab.getLong(offset);
+            // Solo si es el último registro de la clave, los anteriores ya eran basura
+            if (index.remove(key, address(slabIndex, offset))) {
+                stats.recordEviction();
+                if (!removalListeners.isEmpty()) {
+                    notifyRemoval(key, deserialize(readRecord(address(slabIndex, offset))), RemovalCause.SIZE);
+                }
+            }
+            offset += HEADER_SIZE + length;
+        }
+        // Dejamos el bloque vacío para la próxima vuelta
+        slab.putInt(Long.BYTES, 0);
+    }
+
+    private void notifyRemoval(Long key, T value, RemovalCause cause) {
+        for (RemovalListener<Long, T> listener : removalListeners) {
+            listener.onRemoval(key, value, cause);
+        }
+    }
+
+    @Override
+    public void remove(Long key) {
+        lock.writeLock().lock();
+        try {
+            Long address = index.remove(key);
+            if (address != null && !removalListeners.isEmpty()) {
+                notifyRemoval(key, deserialize(readRecord(address)), RemovalCause.EXPLICIT);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            if (!removalListeners.isEmpty()) {
+                index.forEach((key, address) -> notifyRemoval(key, deserialize(readRecord(address)), RemovalCause.EXPLICIT));
+            }
+            index.clear();
+            for (ByteBuffer slab : slabs) {
+                slab.putInt(Long.BYTES, 0);
+            }
+            currentSlab = 0;
+            writeOffset = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Las caducadas no se devuelven, se quitarán al leerlas o al reciclar su bloque
+    @Override
+    public Set<Long> keys() {
+        Set<Long> keys = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            long now = ticker.getAsLong();
+            index.forEach((key, address) -> {
+                if (!isExpired(address, now)) {
+                    keys.add(key);
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return keys;
+    }
+
+    @Override
+    public Collection<T> values() {
+        List<byte[]> records = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            long now = ticker.getAsLong();
+            index.values().forEach(address -> {
+                if (!isExpired(address, now)) {
+                    records.add(readRecord(address));
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return records.stream().map(this::deserialize).toList();
+    }
+
+    // Leemos los bytes con el cerrojo y deserializamos fuera, como en values
+    @Override
+    public List<CacheEntry<Long, T>> entries() {
+        List<Long> keys = new ArrayList<>();
+        List<Long> ages = new ArrayList<>();
+        List<byte[]> records = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            long now = ticker.getAsLong();
+            index.forEach((key, address) -> {
+                if (!isExpired(address, now)) {
+                    keys.add(key);
+                    ages.add(now - writeTime(address));
+                    records.add(readRecord(address));
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<CacheEntry<Long, T>> entries = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            entries.add(new CacheEntry<>(keys.get(i), deserialize(records.get(i)), ages.get(i)));
+        }
+        return entries;
+    }
+
+    @Override
+    public boolean containsKey(Long key) {
+        lock.readLock().lock();
+        try {
+            Long address = index.get(key);
+            return address != null && !isExpired(address, ticker.getAsLong());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean containsValue(T value) {
+        return values().contains(value);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public CacheStats stats() {
+        return stats.snapshot();
+    }
+
+    @Override
+    public void addRemovalListener(RemovalListener<Long, T> listener) {
+        removalListeners.add(listener);
+    }
+}
@@ -0,0 +1,20 @@
+package dev.joseluisgs.cache;
+
+/**
+ * Motivo por el que una entrada sale de la cache.
+ */
+public enum RemovalCause {
+    // Se ha eliminado con remove o clear
+    EXPLICIT,
+    // Se ha sustituido su valor con put
+    REPLACED,
+    // Se ha expulsado por tamaño
+    SIZE,
+    // Ha caducado
+    EXPIRED;
+
+    // Las que no ha pedido el usuario cuentan como expulsiones
+    public boolean wasEvicted() {
+        return this == SIZE || this == EXPIRED;
+    }
+}
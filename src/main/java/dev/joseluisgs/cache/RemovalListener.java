@@ -0,0 +1,16 @@
+package dev.joseluisgs.cache;
+
+/**
+ * Se avisa cada vez que una entrada sale de la cache.
+ * Se ejecuta con el cerrojo del segmento cogido, así que debe ser rápido y no volver a usar la cache.
+ */
+@FunctionalInterface
+public interface RemovalListener<K, T> {
+    void onRemoval(K key, T value, RemovalCause cause);
+
+    // Con la edad de la entrada (nanosegundos desde su escritura), para quien la guarda en otra cache.
+    // Las caches que no saben la edad llaman a la versión sin ella
+    default void onRemoval(K key, T value, RemovalCause cause, long ageNanos) {
+        onRemoval(key, value, cause);
+    }
+}
@@ -0,0 +1,67 @@
+package dev.joseluisgs.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de estadísticas sin bloqueos.
+ * LongAdder reparte las actualizaciones entre varias celdas, así muchos hilos pueden contar a la vez sin competir.
+ */
+public class StatsCounter {
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder putCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder loadSuccessCount = new LongAdder();
+    private final LongAdder loadFailureCount = new LongAdder();
+    private final LongAdder totalLoadTime = new LongAdder();
+    private final LongAdder refreshAheadCount = new LongAdder();
+    private final LongAdder refreshAheadHitCount = new LongAdder();
+
+    public void recordHit() {
+        hitCount.increment();
+    }
+
+    public void recordMiss() {
+        missCount.increment();
+    }
+
+    public void recordPut() {
+        putCount.increment();
+    }
+
+    public void recordEviction() {
+        evictionCount.increment();
+    }
+
+    public void recordLoadSuccess(long loadTime) {
+        loadSuccessCount.increment();
+        totalLoadTime.add(loadTime);
+    }
+
+    public void recordLoadFailure(long loadTime) {
+        loadFailureCount.increment();
+        totalLoadTime.add(loadTime);
+    }
+
+    public void recordRefreshAhead() {
+        refreshAheadCount.increment();
+    }
+
+    public void recordRefreshAheadHit() {
+        refreshAheadHitCount.increment();
+    }
+
+    public CacheStats snapshot() {
+        return new CacheStats(
+                hitCount.sum(),
+                missCount.sum(),
+                putCount.sum(),
+                evictionCount.sum(),
+                loadSuccessCount.sum(),
+                loadFailureCount.sum(),
+                totalLoadTime.sum(),
+                refreshAheadCount.sum(),
+                refreshAheadHitCount.sum()
+        );
+    }
+}
@@ -0,0 +1,59 @@
+package dev.joseluisgs.cache;
+
+import dev.joseluisgs.models.Tenista;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Formato binario de un tenista: campos de tamaño fijo y las fechas como día de época (y nanosegundos del día).
+ * Si se cambia el formato hay que subir CacheSnapshot.VERSION.
+ */
+public class TenistaCodec implements CacheCodec<Tenista> {
+
+    @Override
+    public void write(Tenista tenista, DataOutput out) throws IOException {
+        out.writeLong(tenista.getId());
+        out.writeUTF(tenista.getNombre());
+        out.writeUTF(tenista.getPais());
+        out.writeInt(tenista.getAltura());
+        out.writeInt(tenista.getPeso());
+        out.writeInt(tenista.getPuntos());
+        out.writeByte(tenista.getMano().ordinal());
+        out.writeLong(tenista.getFechaNacimiento().toEpochDay());
+        writeDateTime(tenista.getCreatedAt(), out);
+        writeDateTime(tenista.getUpdatedAt(), out);
+        out.writeBoolean(tenista.isDeleted());
+    }
+
+    @Override
+    public Tenista read(DataInput in) throws IOException {
+        return Tenista.of(
+                in.readLong(),
+                in.readUTF(),
+                in.readUTF(),
+                in.readInt(),
+                in.readInt(),
+                in.readInt(),
+                Tenista.Mano.values()[in.readByte()],
+                LocalDate.ofEpochDay(in.readLong()),
+                readDateTime(in),
+                readDateTime(in),
+                in.readBoolean()
+        );
+    }
+
+    private void writeDateTime(LocalDateTime dateTime, DataOutput out) throws IOException {
+        out.writeLong(dateTime.toLocalDate().toEpochDay());
+        out.writeLong(dateTime.toLocalTime().toNanoOfDay());
+    }
+
+    private LocalDateTime readDateTime(DataInput in) throws IOException {
+        LocalDate date = LocalDate.ofEpochDay(in.readLong());
+        return LocalDateTime.of(date, LocalTime.ofNanoOfDay(in.readLong()));
+    }
+}
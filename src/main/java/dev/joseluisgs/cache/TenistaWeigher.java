@@ -0,0 +1,28 @@
+package dev.joseluisgs.cache;
+
+import dev.joseluisgs.models.Tenista;
+
+/**
+ * Estimación de los bytes que ocupa un tenista en el heap (JVM de 64 bits con punteros comprimidos).
+ * No es exacta, pero crece con los textos, que es lo que hace variar el tamaño de un tenista a otro.
+ */
+public class TenistaWeigher implements Weigher<Long, Tenista> {
+    // Cabecera y campos del tenista, las tres fechas, la clave Long y el nodo de la cache
+    private static final int FIXED_SIZE = 48 + 24 + 2 * (24 + 24 + 24) + 16 + 64;
+    // Cabecera del String y de su array de bytes
+    private static final int STRING_SIZE = 24 + 16;
+
+    @Override
+    public int weigh(Long key, Tenista tenista) {
+        return FIXED_SIZE + stringSize(tenista.getNombre()) + stringSize(tenista.getPais());
+    }
+
+    // Los textos que no son latin1 ocupan dos bytes por carácter
+    private int stringSize(String value) {
+        if (value == null) {
+            return 0;
+        }
+        boolean latin1 = value.chars().allMatch(c -> c < 256);
+        return STRING_SIZE + value.length() * (latin1 ? 1 : 2);
+    }
+}
@@ -4,4 +4,10 @@ import dev.joseluisgs.models.Tenista;
 
 public interface TenistasCache extends Cache<Long, Tenista> {
     int TENISTAS_CACHE_SIZE = 5;
+
+    // Versiones con id primitivo, para no crear un Long en cada consulta.
+    // Solo TenistasLongCacheImpl las resuelve sin convertir, el resto de implementaciones convierten a Long por dentro
+    Tenista get(long id);
+
+    void put(long id, Tenista tenista);
 }
@@ -1,9 +1,28 @@
 package dev.joseluisgs.cache;
 
 import dev.joseluisgs.models.Tenista;
+import reactor.core.publisher.Mono;
 
-public class TenistasCacheImpl extends CacheGeneric<Long, Tenista> implements TenistasCache {
+import java.util.function.Function;
+
+public class TenistasCacheImpl extends ConcurrentCache<Long, Tenista> implements TenistasCache {
     public TenistasCacheImpl(int cacheSize) {
         super(cacheSize);
     }
+
+    public TenistasCacheImpl(CacheConfig config, Function<Long, Mono<Tenista>> loader) {
+        super(config, loader);
+    }
+
+    // Los segmentos usan claves Long, así que aquí sí hay que convertir (y los fallos cargan con claves Long).
+    // Para consultas sin reservar memoria está TenistasLongCacheImpl (cache.type=LONG)
+    @Override
+    public Tenista get(long id) {
+        return get(Long.valueOf(id));
+    }
+
+    @Override
+    public void put(long id, Tenista tenista) {
+        put(Long.valueOf(id), tenista);
+    }
 }
@@ -0,0 +1,17 @@
+package dev.joseluisgs.cache;
+
+import dev.joseluisgs.models.Tenista;
+
+/**
+ * Cache de tenistas con ids primitivos y expulsión CLOCK.
+ * Es la opción para cachear muchos tenistas ocupando poca memoria.
+ */
+public class TenistasLongCacheImpl extends LongCache<Tenista> implements TenistasCache {
+    public TenistasLongCacheImpl(int cacheSize) {
+        super(cacheSize);
+    }
+
+    public TenistasLongCacheImpl(CacheConfig config) {
+        super(config);
+    }
+}
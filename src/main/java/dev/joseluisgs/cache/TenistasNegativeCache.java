@@ -0,0 +1,18 @@
+package dev.joseluisgs.cache;
+
+import dev.joseluisgs.error.TenistaError;
+
+/**
+ * Cache de ids que no existen ni en local ni en remoto, con el error que se devolvió.
+ * Su tiempo de vida es corto, solo para que las consultas repetidas de ids inexistentes no lleguen a la api.
+ */
+public interface TenistasNegativeCache extends Cache<Long, TenistaError> {
+    int NEGATIVE_CACHE_SIZE = 100;
+    long NEGATIVE_CACHE_TTL = 10_000L; // 10 segundos
+
+    TenistaError get(long id);
+
+    void put(long id, TenistaError error);
+
+    void remove(long id);
+}
@@ -0,0 +1,14 @@
+package dev.joseluisgs.cache;
+
+import dev.joseluisgs.error.TenistaError;
+
+import java.time.Duration;
+
+public class TenistasNegativeCacheImpl extends LongCache<TenistaError> implements TenistasNegativeCache {
+    public TenistasNegativeCacheImpl(int cacheSize, Duration timeToLive) {
+        super(CacheConfig.builder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(timeToLive)
+                .build());
+    }
+}
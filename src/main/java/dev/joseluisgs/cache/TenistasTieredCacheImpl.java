@@ -0,0 +1,24 @@
+package dev.joseluisgs.cache;
+
+import dev.joseluisgs.models.Tenista;
+
+/**
+ * Cache de tenistas en dos niveles: la cache concurrente en el heap y los tenistas serializados fuera del heap.
+ * Permite dimensionar la cache para todos los tenistas sin llenar el heap de objetos.
+ */
+public class TenistasTieredCacheImpl extends TieredCache<Tenista> implements TenistasCache {
+    // L2 usa la misma configuración que la cache del heap, así caducan igual
+    public TenistasTieredCacheImpl(TenistasCacheImpl heapCache, CacheConfig config, long offHeapBytes, int slabSize) {
+        super(heapCache, new OffHeapCache<>(offHeapBytes, slabSize, new TenistaCodec(), config));
+    }
+
+    @Override
+    public Tenista get(long id) {
+        return get(Long.valueOf(id));
+    }
+
+    @Override
+    public void put(long id, Tenista tenista) {
+        put(Long.valueOf(id), tenista);
+    }
+}
@@ -0,0 +1,204 @@
+package dev.joseluisgs.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache en dos niveles: una cache pequeña en el heap (L1) delante de una cache fuera del heap (L2).
+ * Lo que L1 expulsa por tamaño baja a L2 en vez de perderse, y un acierto en L2 sube de nuevo a L1.
+ * Cada elemento está en un solo nivel, así L2 no guarda copias de lo que ya está en el heap.
+ * Lo que caduca en L1 no baja, porque ya no es válido. Al bajar y al subir cada entrada conserva su edad,
+ * así caduca a la vez en los dos niveles (L2 debe tener la misma caducidad que L1).
+ * Subir de L2 a L1, escribir y borrar se hacen con un cerrojo por clave (por franjas),
+ * así una subida no puede devolver a L1 un valor que otro hilo acaba de sustituir o borrar.
+ */
+public class TieredCache<T> implements Cache<Long, T> {
+    private static final int LOCK_STRIPES = 64;
+
+    private final Cache<Long, T> l1;
+    private final OffHeapCache<T> l2;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final StatsCounter stats = new StatsCounter();
+    private final List<RemovalListener<Long, T>> removalListeners = new CopyOnWriteArrayList<>();
+
+    public TieredCache(Cache<Long, T> l1, OffHeapCache<T> l2) {
+        this.l1 = l1;
+        this.l2 = l2;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        // L1 -> L2 se hace con el cerrojo de L1 cogido, L2 nunca llama a L1, así no hay interbloqueos.
+        // No coge el cerrojo de la clave: mientras la entrada está en L1 nadie la busca en L2
+        l1.addRemovalListener(new RemovalListener<>() {
+            @Override
+            public void onRemoval(Long key, T value, RemovalCause cause) {
+                onRemoval(key, value, cause, 0L);
+            }
+
+            @Override
+            public void onRemoval(Long key, T value, RemovalCause cause, long ageNanos) {
+                if (cause == RemovalCause.SIZE) {
+                    l2.put(key, value, ageNanos);
+                } else if (cause != RemovalCause.REPLACED) {
+                    notifyRemoval(key, value, cause);
+                }
+            }
+        });
+        // De L2 solo salen definitivamente los expulsados por tamaño y los caducados,
+        // el resto son subidas a L1 o borrados ya avisados
+        l2.addRemovalListener((key, value, cause) -> {
+            if (cause.wasEvicted()) {
+                stats.recordEviction();
+                notifyRemoval(key, value, cause);
+            }
+        });
+    }
+
+    private ReentrantLock lockFor(Long key) {
+        int h = key.hashCode();
+        return locks[(h ^ (h >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    private void notifyRemoval(Long key, T value, RemovalCause cause) {
+        for (RemovalListener<Long, T> listener : removalListeners) {
+            listener.onRemoval(key, value, cause);
+        }
+    }
+
+    @Override
+    public T get(Long key) {
+        T value = l1.get(key);
+        if (value != null) {
+            stats.recordHit();
+            return value;
+        }
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            CacheEntry<Long, T> entry = l2.getEntry(key);
+            if (entry == null) {
+                // Puede que otro hilo la acabe de subir a L1
+                value = l1.get(key);
+                if (value == null) {
+                    stats.recordMiss();
+                    return null;
+                }
+                stats.recordHit();
+                return value;
+            }
+            stats.recordHit();
+            // La subimos a L1 con su edad, puede que eso haga bajar otra a L2
+            l2.remove(key);
+            l1.put(key, entry.value(), entry.ageNanos());
+            return entry.value();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(Long key, T value) {
+        put(key, value, 0L);
+    }
+
+    @Override
+    public void put(Long key, T value, long ageNanos) {
+        stats.recordPut();
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            l2.remove(key);
+            l1.put(key, value, ageNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long key) {
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            l1.remove(key);
+            l2.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        l1.clear();
+        l2.clear();
+    }
+
+    @Override
+    public int size() {
+        return l1.size() + l2.size();
+    }
+
+    @Override
+    public Set<Long> keys() {
+        Set<Long> keys = new HashSet<>(l1.keys());
+        keys.addAll(l2.keys());
+        return keys;
+    }
+
+    @Override
+    public Collection<T> values() {
+        List<T> values = new ArrayList<>(l1.values());
+        values.addAll(l2.values());
+        return values;
+    }
+
+    // Primero las de L2, las más frías, como en el orden de CacheGeneric
+    @Override
+    public List<CacheEntry<Long, T>> entries() {
+        List<CacheEntry<Long, T>> entries = new ArrayList<>(l2.entries());
+        entries.addAll(l1.entries());
+        return entries;
+    }
+
+    @Override
+    public boolean containsKey(Long key) {
+        return l1.containsKey(key) || l2.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(T value) {
+        return l1.containsValue(value) || l2.containsValue(value);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return l1.isEmpty() && l2.isEmpty();
+    }
+
+    // Aciertos, fallos y expulsiones son los de los dos niveles juntos, las cargas y los refrescos los hace L1
+    @Override
+    public CacheStats stats() {
+        CacheStats tiers = stats.snapshot();
+        CacheStats heap = l1.stats();
+        return new CacheStats(
+                tiers.hitCount(),
+                tiers.missCount(),
+                tiers.putCount(),
+                tiers.evictionCount(),
+                heap.loadSuccessCount(),
+                heap.loadFailureCount(),
+                heap.totalLoadTime(),
+                heap.refreshAheadCount(),
+                heap.refreshAheadHitCount()
+        );
+    }
+
+    @Override
+    public void addRemovalListener(RemovalListener<Long, T> listener) {
+        removalListeners.add(listener);
+    }
+}
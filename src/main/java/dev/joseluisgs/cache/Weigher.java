@@ -0,0 +1,10 @@
+package dev.joseluisgs.cache;
+
+/**
+ * Calcula el peso de una entrada, normalmente una estimación de los bytes que ocupa.
+ * Se calcula una vez al escribirla, así que debe ser rápido y no depender de cambios posteriores del valor.
+ */
+@FunctionalInterface
+public interface Weigher<K, T> {
+    int weigh(K key, T value);
+}
@@ -0,0 +1,152 @@
+package dev.joseluisgs.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Escritor único con commit agrupado (group commit).
+ * Las escrituras se encolan en una cola acotada y un solo hilo las va sacando: todas las que hay pendientes
+ * (hasta maxBatch) se ejecutan en una misma transacción y cada Mono se completa cuando esa transacción confirma.
+ * Así los escritores no se pelean por el bloqueo de escritura de SQLite y se paga un commit (y un fsync) por lote,
+ * no por escritura. Con la cola llena, quien escribe espera a que haya hueco.
+ * Si una escritura falla se deshace el lote entero y se repiten una a una, para que solo falle la que tiene que fallar.
+ */
+public class GroupCommitWriter<T> implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final int DEFAULT_MAX_BATCH = 128;
+
+    private final Logger logger = LoggerFactory.getLogger(GroupCommitWriter.class);
+    private final JdbiManager<T> db;
+    private final BlockingQueue<Write<T, ?>> queue;
+    private final int maxBatch;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public GroupCommitWriter(JdbiManager<T> db) {
+        this(db, DEFAULT_CAPACITY, DEFAULT_MAX_BATCH);
+    }
+
+    public GroupCommitWriter(JdbiManager<T> db, int capacity, int maxBatch) {
+        this.db = db;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = maxBatch;
+        this.writer = new Thread(this::run, "group-commit-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Encola la escritura, el Mono termina con su resultado cuando se confirma el lote en el que va.
+     * Se encola al suscribirse, no antes.
+     * El resultado se entrega en boundedElastic: lo que haga quien escribe no debe ocupar el hilo del escritor.
+     */
+    public <R> Mono<R> submit(JdbiManager.TransactionFunction<T, R> operation) {
+        return Mono.<R>create(sink -> {
+            if (!running) {
+                sink.error(new IllegalStateException("El escritor está cerrado"));
+                return;
+            }
+            Write<T, R> write = new Write<>(operation, sink);
+            try {
+                queue.put(write);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                sink.error(e);
+                return;
+            }
+            // Si se ha cerrado mientras encolábamos, puede que el escritor ya no vuelva a mirar la cola.
+            // Si no la sacamos nosotros, es que la ha cogido el escritor y él la termina
+            if (!running && queue.remove(write)) {
+                sink.error(new IllegalStateException("El escritor está cerrado"));
+            }
+        }).publishOn(Schedulers.boundedElastic());
+    }
+
+    // Escrituras esperando en la cola
+    public int pending() {
+        return queue.size();
+    }
+
+    private void run() {
+        List<Write<T, ?>> batch = new ArrayList<>(maxBatch);
+        // Al cerrar terminamos lo que quede en la cola
+        while (running || !queue.isEmpty()) {
+            try {
+                Write<T, ?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+        // Si nos han interrumpido, lo que quede no se va a escribir
+        Write<T, ?> write;
+        while ((write = queue.poll()) != null) {
+            write.sink.error(new IllegalStateException("El escritor está cerrado"));
+        }
+    }
+
+    private void commit(List<Write<T, ?>> batch) {
+        List<Object> results = new ArrayList<>(batch.size());
+        try {
+            db.useTransaction(dao -> {
+                for (Write<T, ?> write : batch) {
+                    results.add(write.operation.apply(dao));
+                }
+            });
+        } catch (Exception e) {
+            logger.debug("Ha fallado un lote de {} escrituras, se repiten una a una: {}", batch.size(), e.getMessage());
+            batch.forEach(this::commitAlone);
+            return;
+        }
+        // Confirmado el lote, avisamos a todos
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).complete(results.get(i));
+        }
+    }
+
+    private void commitAlone(Write<T, ?> write) {
+        Object result;
+        try {
+            result = db.withTransaction(write.operation);
+        } catch (Exception e) {
+            write.sink.error(e);
+            return;
+        }
+        write.complete(result);
+    }
+
+    // Deja de aceptar escrituras y espera a que se escriban las pendientes
+    @Override
+    public void close() {
+        running = false;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Write<T, R>(JdbiManager.TransactionFunction<T, R> operation, MonoSink<R> sink) {
+        @SuppressWarnings("unchecked")
+        void complete(Object result) {
+            sink.success((R) result);
+        }
+    }
+}
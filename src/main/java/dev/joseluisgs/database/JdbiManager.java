@@ -1,22 +1,78 @@
 package dev.joseluisgs.database;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.jdbi.v3.core.Handle;
 import org.jdbi.v3.core.Jdbi;
 import org.jdbi.v3.sqlobject.SqlObjectPlugin;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class JdbiManager<T> {
+import java.util.stream.Stream;
+
+/**
+ * Acceso a la base de datos con Jdbi sobre un pool de conexiones (HikariCP).
+ * Las conexiones se abren una vez y se reutilizan, así cada consulta no paga abrir el fichero,
+ * leer el esquema y empezar con la cache de páginas de SQLite vacía.
+ * Una base de datos en memoria solo existe mientras su conexión está abierta, por eso en ese caso
+ * el pool tiene una única conexión que nunca se cierra.
+ * Cada conexión se abre con los PRAGMA del perfil de SQLite indicado.
+ */
+public class JdbiManager<T> implements AutoCloseable {
+    public static final int DEFAULT_POOL_SIZE = 4;
+
     private final Logger logger = LoggerFactory.getLogger(JdbiManager.class);
+    private final HikariDataSource dataSource;
     private final Jdbi jdbi;
     private final Class<T> daoClass;
 
     public JdbiManager(String database, Class<T> daoClass) {
-        logger.debug("Creando JdbiManager con URL: {}", database);
+        this(database, daoClass, DEFAULT_POOL_SIZE);
+    }
+
+    public JdbiManager(String database, Class<T> daoClass, int poolSize) {
+        this(database, daoClass, poolSize, SqliteProfile.DEFAULT);
+    }
+
+    public JdbiManager(String database, Class<T> daoClass, int poolSize, SqliteProfile profile) {
+        logger.debug("Creando JdbiManager con URL: {}, un pool de {} conexiones y PRAGMAs {}", database, poolSize, profile.pragmas());
         this.daoClass = daoClass;
-        this.jdbi = Jdbi.create("jdbc:sqlite:" + database); // jdbc:sqlite:tenistas
+        this.dataSource = new HikariDataSource(poolConfig(database, poolSize, profile));
+        this.jdbi = Jdbi.create(dataSource); // jdbc:sqlite:tenistas
         this.jdbi.installPlugin(new SqlObjectPlugin());
     }
 
+    private HikariConfig poolConfig(String database, int poolSize, SqliteProfile profile) {
+        var config = new HikariConfig();
+        config.setJdbcUrl("jdbc:sqlite:" + database);
+        // El driver de SQLite lee los PRAGMA de las propiedades de la conexión
+        profile.pragmas().forEach(config::addDataSourceProperty);
+        // Publicamos las métricas del pool por JMX (HikariPool-N)
+        config.setRegisterMbeans(true);
+        if (database.contains(":memory:")) {
+            config.setMaximumPoolSize(1);
+            config.setMaxLifetime(0);
+            config.setIdleTimeout(0);
+        } else {
+            config.setMaximumPoolSize(poolSize);
+        }
+        // Todas abiertas desde el principio, las conexiones de SQLite son baratas de mantener
+        config.setMinimumIdle(config.getMaximumPoolSize());
+        return config;
+    }
+
+    // Estado actual del pool
+    public PoolStats getPoolStats() {
+        var pool = dataSource.getHikariPoolMXBean();
+        return new PoolStats(pool.getActiveConnections(), pool.getIdleConnections(),
+                pool.getTotalConnections(), pool.getThreadsAwaitingConnection());
+    }
+
+    // Cerramos todas las conexiones del pool
+    @Override
+    public void close() {
+        dataSource.close();
+    }
 
     // Para operaciones con la base de datos que devuelven un valor
     public <R> R with(HandleFunction<T, R> handleFunction) {
@@ -28,6 +84,19 @@ public class JdbiManager<T> {
         jdbi.useExtension(daoClass, handleFunction::apply);
     }
 
+    // Para recorrer un resultado fila a fila sin cargarlo entero en memoria.
+    // La conexión sigue ocupada hasta que se cierra el Stream, así que hay que cerrarlo siempre (try-with-resources)
+    // y no usar la base de datos mientras se recorre si el pool es de una sola conexión (en memoria)
+    public <R> Stream<R> stream(HandleFunction<T, Stream<R>> handleFunction) {
+        Handle handle = jdbi.open();
+        try {
+            return handleFunction.apply(handle.attach(daoClass)).onClose(handle::close);
+        } catch (RuntimeException e) {
+            handle.close();
+            throw e;
+        }
+    }
+
     // Para transacciones con resultado
     public <R> R withTransaction(TransactionFunction<T, R> transactionFunction) {
         return jdbi.inTransaction(handle -> {
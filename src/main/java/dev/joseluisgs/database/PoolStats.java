@@ -0,0 +1,8 @@
+package dev.joseluisgs.database;
+
+/**
+ * Foto del estado del pool de conexiones: conexiones en uso, libres, totales e hilos esperando una.
+ * Si waiting no suele ser 0, el pool se queda corto.
+ */
+public record PoolStats(int active, int idle, int total, int waiting) {
+}
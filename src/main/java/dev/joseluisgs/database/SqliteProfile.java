@@ -0,0 +1,59 @@
+package dev.joseluisgs.database;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * PRAGMAs de SQLite que se aplican al abrir cada conexión del pool.
+ * Los que son null no se tocan y SQLite usa su valor por defecto.
+ * PERFORMANCE usa WAL, así los lectores no se bloquean mientras se escribe, y synchronous=NORMAL,
+ * que con WAL no hace fsync en cada commit sino en cada checkpoint (sin riesgo de corromper la base de datos,
+ * solo se pueden perder los últimos commits si se va la luz).
+ */
+@Getter
+@Builder(toBuilder = true)
+public class SqliteProfile {
+    public static final SqliteProfile DEFAULT = SqliteProfile.builder().build();
+    public static final SqliteProfile PERFORMANCE = SqliteProfile.builder()
+            .journalMode("WAL")
+            .synchronous("NORMAL")
+            .mmapSize(256L * 1024 * 1024)
+            .cacheSize(-16_000) // Negativo es en KiB: unos 16 MB
+            .tempStore("MEMORY")
+            .busyTimeout(5_000)
+            .build();
+
+    // DELETE (por defecto), WAL...
+    private String journalMode;
+    // FULL (por defecto), NORMAL, OFF
+    private String synchronous;
+    // Bytes del fichero que se leen con memoria mapeada, 0 lo desactiva
+    private Long mmapSize;
+    // Páginas de la cache de SQLite por conexión, o KiB si es negativo
+    private Integer cacheSize;
+    // Dónde van las tablas e índices temporales: DEFAULT, FILE o MEMORY
+    private String tempStore;
+    // Milisegundos que se espera a que se libere un bloqueo antes de dar error
+    private Integer busyTimeout;
+
+    // Los PRAGMA con sus nombres en SQLite, el driver los aplica al abrir la conexión
+    public Map<String, String> pragmas() {
+        Map<String, String> pragmas = new LinkedHashMap<>();
+        putIfSet(pragmas, "journal_mode", journalMode);
+        putIfSet(pragmas, "synchronous", synchronous);
+        putIfSet(pragmas, "mmap_size", mmapSize);
+        putIfSet(pragmas, "cache_size", cacheSize);
+        putIfSet(pragmas, "temp_store", tempStore);
+        putIfSet(pragmas, "busy_timeout", busyTimeout);
+        return pragmas;
+    }
+
+    private void putIfSet(Map<String, String> pragmas, String name, Object value) {
+        if (value != null) {
+            pragmas.put(name, value.toString());
+        }
+    }
+}
@@ -4,6 +4,7 @@ import org.jdbi.v3.core.mapper.reflect.ColumnName;
 
 // Podemos usar anotaciones para mapear las columnas de la base de datos a los atributos de la clase
 // No es obligatorio, si se llaman igual no hace falta
+// Las fechas se guardan como números: fecha_nacimiento en días desde 1970-01-01 y created_at/updated_at en milisegundos desde epoch (UTC)
 public record TenistaEntity(
         @ColumnName("id")
         long id,
@@ -20,11 +21,11 @@ public record TenistaEntity(
         @ColumnName("mano")
         String mano,
         @ColumnName("fecha_nacimiento")
-        String fecha_nacimiento,
+        long fecha_nacimiento,
         @ColumnName("created_at")
-        String created_at,
+        Long created_at,
         @ColumnName("updated_at")
-        String updated_at,
+        Long updated_at,
         @ColumnName("is_deleted")
         Boolean is_deleted
 ) {
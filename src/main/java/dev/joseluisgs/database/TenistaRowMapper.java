@@ -0,0 +1,59 @@
+package dev.joseluisgs.database;
+
+import dev.joseluisgs.mapper.TenistaMapper;
+import dev.joseluisgs.models.Tenista;
+import org.jdbi.v3.core.mapper.RowMapper;
+import org.jdbi.v3.core.statement.StatementContext;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Mapeador de las filas de TenistaEntity directamente a Tenista, sin pasar por TenistaEntity.
+ * Jdbi llama a specialize una vez por consulta: ahí buscamos la posición de cada columna
+ * y el mapeador que devolvemos lee cada fila por índice, sin buscar columnas por nombre ni usar reflexión.
+ */
+public class TenistaRowMapper implements RowMapper<Tenista> {
+
+    @Override
+    public Tenista map(ResultSet rs, StatementContext ctx) throws SQLException {
+        return specialize(rs, ctx).map(rs, ctx);
+    }
+
+    @Override
+    public RowMapper<Tenista> specialize(ResultSet rs, StatementContext ctx) throws SQLException {
+        final int id = rs.findColumn("id");
+        final int nombre = rs.findColumn("nombre");
+        final int pais = rs.findColumn("pais");
+        final int altura = rs.findColumn("altura");
+        final int peso = rs.findColumn("peso");
+        final int puntos = rs.findColumn("puntos");
+        final int mano = rs.findColumn("mano");
+        final int fechaNacimiento = rs.findColumn("fecha_nacimiento");
+        final int createdAt = rs.findColumn("created_at");
+        final int updatedAt = rs.findColumn("updated_at");
+        final int isDeleted = rs.findColumn("is_deleted");
+
+        return (row, context) -> new Tenista(
+                row.getLong(id),
+                row.getString(nombre),
+                row.getString(pais),
+                row.getInt(altura),
+                row.getInt(peso),
+                row.getInt(puntos),
+                Tenista.Mano.valueOf(row.getString(mano)),
+                LocalDate.ofEpochDay(row.getLong(fechaNacimiento)),
+                toDateTime(row, createdAt),
+                toDateTime(row, updatedAt),
+                row.getBoolean(isDeleted) // NULL se lee como false
+        );
+    }
+
+    // Igual que en TenistaMapper, sin fecha se usa la actual
+    private static LocalDateTime toDateTime(ResultSet rs, int column) throws SQLException {
+        long epochMilli = rs.getLong(column);
+        return rs.wasNull() ? LocalDateTime.now() : TenistaMapper.fromEpochMilli(epochMilli);
+    }
+}
@@ -1,17 +1,87 @@
 package dev.joseluisgs.database;
 
-import org.jdbi.v3.sqlobject.config.RegisterConstructorMapper;
+import dev.joseluisgs.models.Tenista;
+import org.jdbi.v3.sqlobject.config.RegisterRowMapper;
+import org.jdbi.v3.sqlobject.customizer.BatchChunkSize;
 import org.jdbi.v3.sqlobject.customizer.Bind;
+import org.jdbi.v3.sqlobject.customizer.BindList;
+import org.jdbi.v3.sqlobject.customizer.BindMethods;
+import org.jdbi.v3.sqlobject.customizer.Define;
 import org.jdbi.v3.sqlobject.statement.GetGeneratedKeys;
+import org.jdbi.v3.sqlobject.statement.SqlBatch;
 import org.jdbi.v3.sqlobject.statement.SqlQuery;
+import org.jdbi.v3.sqlobject.statement.SqlScript;
 import org.jdbi.v3.sqlobject.statement.SqlUpdate;
+import org.jdbi.v3.sqlobject.transaction.Transaction;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface TenistasDao {
+    // Versión del esquema, guardada en PRAGMA user_version
+    // 1 (o 0, las bases de datos de antes): fechas como texto ISO
+    // 2: fechas como INTEGER, fecha_nacimiento en días desde 1970-01-01 y created_at/updated_at en milisegundos desde epoch (UTC)
+    int SCHEMA_VERSION = 2;
+
+    // Crea o migra la tabla a la versión actual, todo en una transacción
+    @Transaction
+    default void createSchema() {
+        if (tableExists() && schemaVersion() < SCHEMA_VERSION) {
+            migrateDatesToEpoch();
+        } else {
+            createTable();
+        }
+        createIndexes();
+        setSchemaVersion(SCHEMA_VERSION);
+    }
+
+    @SqlQuery("PRAGMA user_version")
+    int schemaVersion();
+
+    // PRAGMA no admite parámetros, por eso se define en el SQL
+    @SqlUpdate("PRAGMA user_version = <version>")
+    void setSchemaVersion(@Define("version") int version);
+
+    @SqlQuery("SELECT count(*) > 0 FROM sqlite_master WHERE type = 'table' AND name = 'TenistaEntity'")
+    boolean tableExists();
+
+    // De la versión 1 a la 2: se copia la tabla convirtiendo las fechas ISO con julianday (2440587.5 es 1970-01-01)
+    // Los índices se borran antes porque al renombrar la tabla se irían con ella
+    default void migrateDatesToEpoch() {
+        renameToV1();
+        createTable();
+        copyFromV1();
+        dropV1();
+    }
+
+    @SqlScript("DROP INDEX IF EXISTS idx_tenista_deleted_pais_puntos")
+    @SqlScript("DROP INDEX IF EXISTS idx_tenista_deleted_puntos")
+    @SqlScript("ALTER TABLE TenistaEntity RENAME TO TenistaEntity_v1")
+    void renameToV1();
+
+    @SqlUpdate("""
+              INSERT INTO TenistaEntity (id, nombre, pais, altura, peso, puntos, mano, fecha_nacimiento, created_at, updated_at, is_deleted)
+              SELECT id, nombre, pais, altura, peso, puntos, mano,
+                     CAST(julianday(fecha_nacimiento) - 2440587.5 AS INTEGER),
+                     CAST(round((julianday(created_at) - 2440587.5) * 86400000) AS INTEGER),
+                     CAST(round((julianday(updated_at) - 2440587.5) * 86400000) AS INTEGER),
+                     is_deleted
+              FROM TenistaEntity_v1
+            """)
+    void copyFromV1();
+
+    @SqlUpdate("DROP TABLE TenistaEntity_v1")
+    void dropV1();
+
+    default void createTable() {
+        createTable("TenistaEntity");
+    }
+
+    // La misma tabla con otro nombre, para la tabla en sombra de las recargas completas
     @SqlUpdate("""
-              CREATE TABLE IF NOT EXISTS TenistaEntity (
+              CREATE TABLE IF NOT EXISTS <table> (
                       id INTEGER PRIMARY KEY,
                       nombre TEXT NOT NULL,
                       pais TEXT NOT NULL,
@@ -19,13 +89,73 @@ public interface TenistasDao {
                       peso INTEGER NOT NULL,
                       puntos INTEGER NOT NULL,
                       mano TEXT NOT NULL,
-                      fecha_nacimiento TEXT NOT NULL,
-                      created_at TEXT NOT NULL,
-                      updated_at TEXT NOT NULL,
+                      fecha_nacimiento INTEGER NOT NULL,
+                      created_at INTEGER NOT NULL,
+                      updated_at INTEGER NOT NULL,
                       is_deleted INTEGER NOT NULL DEFAULT 0
                   )
             """)
-    void createTable();
+    void createTable(@Define("table") String table);
+
+    // Recarga completa en sombra: se llena TenistaEntity_shadow sin tocar TenistaEntity
+    // y luego se cambia una por otra, así quien lee ve la tabla anterior o la nueva, nunca a medias
+    default void createShadow() {
+        dropShadow();
+        createTable("TenistaEntity_shadow");
+    }
+
+    @SqlUpdate("DROP TABLE IF EXISTS TenistaEntity_shadow")
+    void dropShadow();
+
+    @SqlBatch("INSERT INTO TenistaEntity_shadow (id, nombre, pais, altura, peso, puntos, mano, fecha_nacimiento, created_at, updated_at, is_deleted) VALUES (:id, :nombre, :pais, :altura, :peso, :puntos, :mano, :fecha_nacimiento, :now, :now, :is_deleted)")
+    int[] insertShadowBatch(@BindMethods List<TenistaEntity> tenistas,
+                            @Bind("now") long now,
+                            @BatchChunkSize int chunkSize);
+
+    // El cambio es una transacción: se borra la tabla (con sus índices), se renombra la sombra y se vuelven a crear los índices
+    @Transaction
+    default void swapShadow() {
+        dropTableAndRenameShadow();
+        createIndexes();
+    }
+
+    @SqlScript("DROP TABLE TenistaEntity")
+    @SqlScript("ALTER TABLE TenistaEntity_shadow RENAME TO TenistaEntity")
+    void dropTableAndRenameShadow();
+
+    // Filas de la sombra nuevas o con algún dato distinto, más las de la tabla actual que ya no están en la sombra.
+    // Las fechas no cuentan, en la sombra siempre son las de la recarga
+    @SqlQuery("""
+              SELECT (SELECT COUNT(*) FROM TenistaEntity_shadow s
+                      WHERE NOT EXISTS (SELECT 1 FROM TenistaEntity t WHERE t.id = s.id
+                              AND t.nombre IS s.nombre AND t.pais IS s.pais AND t.altura IS s.altura AND t.peso IS s.peso
+                              AND t.puntos IS s.puntos AND t.mano IS s.mano AND t.fecha_nacimiento IS s.fecha_nacimiento
+                              AND t.is_deleted IS s.is_deleted))
+                   + (SELECT COUNT(*) FROM TenistaEntity t
+                      WHERE NOT EXISTS (SELECT 1 FROM TenistaEntity_shadow s WHERE s.id = t.id))
+            """)
+    int countShadowChanges();
+
+    // Las filas que ya existían conservan su fecha de creación, y la de actualización si no ha cambiado ningún dato,
+    // igual que con upsertBatch. Así la fecha de actualización dice qué filas ha cambiado la recarga
+    @SqlUpdate("""
+              UPDATE TenistaEntity_shadow AS s SET
+                      created_at = t.created_at,
+                      updated_at = CASE WHEN t.nombre IS s.nombre AND t.pais IS s.pais AND t.altura IS s.altura
+                              AND t.peso IS s.peso AND t.puntos IS s.puntos AND t.mano IS s.mano
+                              AND t.fecha_nacimiento IS s.fecha_nacimiento AND t.is_deleted IS s.is_deleted
+                          THEN t.updated_at ELSE s.updated_at END
+              FROM TenistaEntity AS t
+              WHERE t.id = s.id
+            """)
+    void keepShadowDates();
+
+    // Índices para las consultas filtradas, así no hay que recorrer toda la tabla.
+    // Todas las consultas filtran por is_deleted, por eso va delante, y puntos va detrás
+    // para devolver las filas ya ordenadas sin ordenar en memoria (y parar pronto con LIMIT)
+    @SqlScript("CREATE INDEX IF NOT EXISTS idx_tenista_deleted_pais_puntos ON TenistaEntity (is_deleted, pais, puntos)")
+    @SqlScript("CREATE INDEX IF NOT EXISTS idx_tenista_deleted_puntos ON TenistaEntity (is_deleted, puntos)")
+    void createIndexes();
 
 
     // Remove all
@@ -34,14 +164,43 @@ public interface TenistasDao {
 
     // select all
     @SqlQuery("SELECT * FROM TenistaEntity")
-    // @RegisterRowMapper(TenistaEntityMapper.class)
-    @RegisterConstructorMapper(TenistaEntity.class)
-    List<TenistaEntity> selectAll();
+    @RegisterRowMapper(TenistaRowMapper.class)
+    List<Tenista> selectAll();
+
+    // select all como Stream: las filas se leen del cursor según se piden, hay que cerrarlo al terminar
+    @SqlQuery("SELECT * FROM TenistaEntity ORDER BY id")
+    @RegisterRowMapper(TenistaRowMapper.class)
+    Stream<Tenista> streamAll();
+
+    // select por páginas (keyset): las filas tras lastId en orden de id, va por la clave primaria sin OFFSET
+    @SqlQuery("SELECT * FROM TenistaEntity WHERE id > :lastId ORDER BY id LIMIT :limit")
+    @RegisterRowMapper(TenistaRowMapper.class)
+    List<Tenista> selectPage(@Bind("lastId") long lastId, @Bind("limit") int limit);
 
     // select by id
     @SqlQuery("SELECT * FROM TenistaEntity WHERE id = :id")
-    @RegisterConstructorMapper(TenistaEntity.class)
-    Optional<TenistaEntity> selectById(@Bind("id") long id);
+    @RegisterRowMapper(TenistaRowMapper.class)
+    Optional<Tenista> selectById(@Bind("id") long id);
+
+    // select de varios ids de una vez, para cargar juntos los que faltan en la cache
+    @SqlQuery("SELECT * FROM TenistaEntity WHERE id IN (<ids>)")
+    @RegisterRowMapper(TenistaRowMapper.class)
+    List<Tenista> selectByIds(@BindList("ids") Collection<Long> ids);
+
+    // select by pais, de más a menos puntos
+    @SqlQuery("SELECT * FROM TenistaEntity WHERE pais = :pais AND is_deleted = 0 ORDER BY puntos DESC")
+    @RegisterRowMapper(TenistaRowMapper.class)
+    List<Tenista> selectByPais(@Bind("pais") String pais);
+
+    // select con más de minPuntos, de más a menos puntos
+    @SqlQuery("SELECT * FROM TenistaEntity WHERE puntos > :puntos AND is_deleted = 0 ORDER BY puntos DESC")
+    @RegisterRowMapper(TenistaRowMapper.class)
+    List<Tenista> selectByPuntosGreaterThan(@Bind("puntos") int puntos);
+
+    // ranking: los limit con más puntos, se lee el índice de puntos desde el final y se para al llegar a limit
+    @SqlQuery("SELECT * FROM TenistaEntity WHERE is_deleted = 0 ORDER BY puntos DESC LIMIT :limit")
+    @RegisterRowMapper(TenistaRowMapper.class)
+    List<Tenista> selectTopByPuntos(@Bind("limit") int limit);
 
     // insert and return id
     @SqlUpdate("INSERT INTO TenistaEntity (nombre, pais, altura, peso, puntos, mano, fecha_nacimiento, created_at, updated_at) VALUES (:nombre, :pais, :altura, :peso, :puntos, :mano, :fecha_nacimiento, :created_at, :updated_at)")
@@ -52,9 +211,45 @@ public interface TenistasDao {
                 @Bind("peso") int peso,
                 @Bind("puntos") int puntos,
                 @Bind("mano") String mano,
-                @Bind("fecha_nacimiento") String fechaNacimiento,
-                @Bind("created_at") String createdAt,
-                @Bind("updated_at") String updatedAt);
+                @Bind("fecha_nacimiento") long fechaNacimiento,
+                @Bind("created_at") long createdAt,
+                @Bind("updated_at") long updatedAt);
+
+    // insert por lotes: una sola sentencia preparada y las filas se envían de chunkSize en chunkSize
+    // now se usa en todas las filas como fecha de creación y actualización
+    @SqlBatch("INSERT INTO TenistaEntity (nombre, pais, altura, peso, puntos, mano, fecha_nacimiento, created_at, updated_at) VALUES (:nombre, :pais, :altura, :peso, :puntos, :mano, :fecha_nacimiento, :now, :now)")
+    int[] insertBatch(@BindMethods List<TenistaEntity> tenistas,
+                      @Bind("now") long now,
+                      @BatchChunkSize int chunkSize);
+
+    // upsert por lotes con el id de la fila: inserta los nuevos y actualiza los existentes solo si algún dato ha cambiado,
+    // así los que no cambian no se escriben (cuentan 0 en el resultado) y conservan sus fechas
+    @SqlBatch("""
+              INSERT INTO TenistaEntity (id, nombre, pais, altura, peso, puntos, mano, fecha_nacimiento, created_at, updated_at, is_deleted)
+              VALUES (:id, :nombre, :pais, :altura, :peso, :puntos, :mano, :fecha_nacimiento, :now, :now, :is_deleted)
+              ON CONFLICT(id) DO UPDATE SET
+                      nombre = excluded.nombre, pais = excluded.pais, altura = excluded.altura, peso = excluded.peso,
+                      puntos = excluded.puntos, mano = excluded.mano, fecha_nacimiento = excluded.fecha_nacimiento,
+                      updated_at = excluded.updated_at, is_deleted = excluded.is_deleted
+              WHERE nombre IS NOT excluded.nombre OR pais IS NOT excluded.pais OR altura IS NOT excluded.altura
+                      OR peso IS NOT excluded.peso OR puntos IS NOT excluded.puntos OR mano IS NOT excluded.mano
+                      OR fecha_nacimiento IS NOT excluded.fecha_nacimiento OR is_deleted IS NOT excluded.is_deleted
+            """)
+    int[] upsertBatch(@BindMethods List<TenistaEntity> tenistas,
+                      @Bind("now") long now,
+                      @BatchChunkSize int chunkSize);
+
+    // ids de todas las filas, para saber cuáles ya no existen
+    @SqlQuery("SELECT id FROM TenistaEntity")
+    List<Long> selectIds();
+
+    // delete por lotes
+    @SqlBatch("DELETE FROM TenistaEntity WHERE id = :id")
+    int[] deleteBatch(@Bind("id") List<Long> ids);
+
+    // último id generado en esta conexión, el driver de SQLite no devuelve las claves de un lote
+    @SqlQuery("SELECT last_insert_rowid()")
+    long lastInsertId();
 
     // update
     @SqlUpdate("UPDATE TenistaEntity SET nombre = :nombre, pais = :pais, altura = :altura, peso = :peso, puntos = :puntos, mano = :mano, fecha_nacimiento = :fecha_nacimiento, updated_at = :updated_at, is_deleted = :is_deleted WHERE id = :id")
@@ -65,8 +260,8 @@ public interface TenistasDao {
                @Bind("peso") int peso,
                @Bind("puntos") int puntos,
                @Bind("mano") String mano,
-               @Bind("fecha_nacimiento") String fechaNacimiento,
-               @Bind("updated_at") String updatedAt,
+               @Bind("fecha_nacimiento") long fechaNacimiento,
+               @Bind("updated_at") long updatedAt,
                @Bind("is_deleted") boolean isDeleted);
 
     // delete
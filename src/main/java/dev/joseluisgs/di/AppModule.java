@@ -2,9 +2,23 @@ package dev.joseluisgs.di;
 
 import dagger.Module;
 import dagger.Provides;
+import dev.joseluisgs.cache.CacheConfig;
+import dev.joseluisgs.cache.CacheSnapshot;
+import dev.joseluisgs.cache.ConcurrentCache;
+import dev.joseluisgs.cache.EvictionPolicy;
+import dev.joseluisgs.cache.MemoryPressureMonitor;
+import dev.joseluisgs.cache.TenistaCodec;
+import dev.joseluisgs.cache.TenistaWeigher;
+import dev.joseluisgs.cache.TenistasCache;
 import dev.joseluisgs.cache.TenistasCacheImpl;
+import dev.joseluisgs.cache.TenistasLongCacheImpl;
+import dev.joseluisgs.cache.TenistasNegativeCache;
+import dev.joseluisgs.cache.TenistasNegativeCacheImpl;
+import dev.joseluisgs.cache.TenistasTieredCacheImpl;
 import dev.joseluisgs.database.JdbiManager;
+import dev.joseluisgs.database.SqliteProfile;
 import dev.joseluisgs.database.TenistasDao;
+import dev.joseluisgs.models.Tenista;
 import dev.joseluisgs.notification.TenistasNotifications;
 import dev.joseluisgs.repository.TenistasRepositoryLocal;
 import dev.joseluisgs.repository.TenistasRepositoryRemote;
@@ -14,13 +28,24 @@ import dev.joseluisgs.service.TenistasServiceImpl;
 import dev.joseluisgs.storage.TenistasStorageCsv;
 import dev.joseluisgs.storage.TenistasStorageJson;
 import dev.joseluisgs.utils.ConfigProperties;
+import io.vavr.control.Either;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 import javax.inject.Singleton;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.function.Function;
 
 import static dev.joseluisgs.rest.TenistasApiRest.API_TENISTAS_URL;
 
 @Module
 public class AppModule {
+    private static final Logger logger = LoggerFactory.getLogger(AppModule.class);
 
     private final ConfigProperties configProperties;
 
@@ -32,7 +57,31 @@ public class AppModule {
     @Singleton
     public TenistasRepositoryLocal providesLocalRepository() {
         String dbUrl = configProperties.getProperty("database.name", "tenistas.db");
-        return new TenistasRepositoryLocal(new JdbiManager<>(dbUrl, TenistasDao.class));
+        int poolSize = configProperties.getIntProperty("database.pool.size", JdbiManager.DEFAULT_POOL_SIZE);
+        // Por defecto se empieza con la base de datos vacía. Conservarla sirve, por ejemplo, para que la foto
+        // de la cache precargue desde ella las claves sin valor; el primer refresco la pone al día con la api
+        boolean keepData = Boolean.parseBoolean(configProperties.getProperty("database.keepData", "false").trim());
+        var repository = new TenistasRepositoryLocal(new JdbiManager<>(dbUrl, TenistasDao.class, poolSize, sqliteProfile()), keepData)
+                .batchSize(configProperties.getIntProperty("database.batch.size", TenistasRepositoryLocal.DEFAULT_BATCH_SIZE));
+        // Al salir se terminan las escrituras que queden en la cola antes de cerrar la base de datos
+        Runtime.getRuntime().addShutdownHook(new Thread(repository::close));
+        return repository;
+    }
+
+    // Perfil base y cada PRAGMA se puede cambiar por separado
+    private SqliteProfile sqliteProfile() {
+        if (configProperties.getProperty("database.profile", "PERFORMANCE").trim().equals("DEFAULT")) {
+            return SqliteProfile.DEFAULT;
+        }
+        var profile = SqliteProfile.PERFORMANCE;
+        return profile.toBuilder()
+                .journalMode(configProperties.getProperty("database.journalMode", profile.getJournalMode()).trim())
+                .synchronous(configProperties.getProperty("database.synchronous", profile.getSynchronous()).trim())
+                .mmapSize(configProperties.getLongProperty("database.mmapSize", profile.getMmapSize()))
+                .cacheSize(configProperties.getIntProperty("database.cacheSize", profile.getCacheSize()))
+                .tempStore(configProperties.getProperty("database.tempStore", profile.getTempStore()).trim())
+                .busyTimeout(configProperties.getIntProperty("database.busyTimeout", profile.getBusyTimeout()))
+                .build();
     }
 
     @Provides
@@ -43,8 +92,93 @@ public class AppModule {
     }
 
     @Provides
-    public TenistasCacheImpl providesCache() {
-        return new TenistasCacheImpl(5);
+    @Singleton
+    public TenistasCache providesCache(TenistasRepositoryLocal localRepo) {
+        long maximumWeight = configProperties.getLongProperty("cache.weight.max", 0L) * 1024;
+        var config = CacheConfig.builder()
+                .maximumSize(configProperties.getIntProperty("cache.size", TenistasCache.TENISTAS_CACHE_SIZE))
+                .maximumWeight(maximumWeight)
+                .weigher(maximumWeight > 0 ? new TenistaWeigher() : null)
+                .evictionPolicy(EvictionPolicy.valueOf(configProperties.getProperty("cache.policy", "LRU").trim()))
+                .expireAfterWrite(durationOrNull(configProperties.getLongProperty("cache.ttl", 0L)))
+                .refreshAfterWrite(durationOrNull(configProperties.getLongProperty("cache.refresh", 0L)))
+                .cleanupInterval(durationOrNull(configProperties.getLongProperty("cache.cleanup", 1000L)))
+                .refreshAheadThreshold(configProperties.getIntProperty("cache.ahead.hits", 0))
+                .refreshAheadWindow(Duration.ofMillis(configProperties.getLongProperty("cache.ahead.window", 0L)))
+                .refreshScheduler(scheduler(configProperties.getProperty("cache.ahead.scheduler", "ELASTIC").trim()))
+                .build();
+        // Las entradas se refrescan desde el repositorio local, si ya no existen se quitan de la cache
+        Function<Long, Mono<Tenista>> loader = id -> localRepo.getById(id)
+                .filter(Either::isRight)
+                .map(Either::get);
+        TenistasCache cache = switch (configProperties.getProperty("cache.type", "CONCURRENT").trim()) {
+            // Con muchos tenistas la cache de ids primitivos ocupa mucho menos, pero no refresca en segundo plano
+            case "LONG" -> new TenistasLongCacheImpl(config);
+            // La cache concurrente queda como primer nivel y lo que expulsa baja a memoria fuera del heap
+            case "TIERED" -> new TenistasTieredCacheImpl(watchMemory(new TenistasCacheImpl(config, loader)), config,
+                    configProperties.getLongProperty("cache.offheap.size", 64L) * 1024 * 1024,
+                    configProperties.getIntProperty("cache.offheap.slab", 1024 * 1024));
+            default -> watchMemory(new TenistasCacheImpl(config, loader));
+        };
+        warmUp(cache, loader);
+        return cache;
+    }
+
+    // Si el heap sigue lleno tras una recolección, reducimos la cache en vez de arriesgarnos a un OutOfMemoryError
+    private <C extends ConcurrentCache<?, ?>> C watchMemory(C cache) {
+        int threshold = configProperties.getIntProperty("cache.memory.threshold", 0);
+        if (threshold > 0) {
+            double keep = configProperties.getIntProperty("cache.memory.keep", 50) / 100.0;
+            new MemoryPressureMonitor(threshold / 100.0, () -> {
+                int evicted = cache.shrink(keep);
+                logger.warn("Cache reducida por falta de memoria, expulsados {} tenistas", evicted);
+            });
+        }
+        return cache;
+    }
+
+    // Arrancamos con la foto de la última ejecución y la guardamos de nuevo al salir
+    private void warmUp(TenistasCache cache, Function<Long, Mono<Tenista>> loader) {
+        String file = configProperties.getProperty("cache.snapshot.file", "").trim();
+        if (file.isEmpty()) {
+            return;
+        }
+        var snapshot = new CacheSnapshot<>(Path.of(file), new TenistaCodec());
+        boolean withValues = Boolean.parseBoolean(configProperties.getProperty("cache.snapshot.values", "true").trim());
+        Duration maxAge = Duration.ofMillis(configProperties.getLongProperty("cache.snapshot.maxAge", 3_600_000L));
+        snapshot.load(cache, maxAge, loader).subscribe(
+                count -> logger.debug("Cache precargada con {} tenistas", count),
+                error -> logger.error("Error precargando la cache", error)
+        );
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                snapshot.save(cache, withValues);
+            } catch (IOException e) {
+                logger.error("Error guardando la foto de la cache", e);
+            }
+        }));
+    }
+
+    @Provides
+    @Singleton
+    public TenistasNegativeCache providesNegativeCache() {
+        return new TenistasNegativeCacheImpl(
+                configProperties.getIntProperty("cache.negative.size", TenistasNegativeCache.NEGATIVE_CACHE_SIZE),
+                Duration.ofMillis(configProperties.getLongProperty("cache.negative.ttl", TenistasNegativeCache.NEGATIVE_CACHE_TTL)));
+    }
+
+    // Los refrescos hacen consultas a la base de datos, por eso por defecto van al planificador elástico
+    private Scheduler scheduler(String name) {
+        return switch (name) {
+            case "PARALLEL" -> Schedulers.parallel();
+            case "SINGLE" -> Schedulers.single();
+            default -> Schedulers.boundedElastic();
+        };
+    }
+
+    // 0 o negativo significa desactivado
+    private Duration durationOrNull(long millis) {
+        return millis > 0 ? Duration.ofMillis(millis) : null;
     }
 
     @Provides
@@ -69,10 +203,12 @@ public class AppModule {
     @Singleton
     public TenistasServiceImpl providesTenistasService(TenistasRepositoryLocal localRepo,
                                                        TenistasRepositoryRemote remoteRepo,
-                                                       TenistasCacheImpl cache,
+                                                       TenistasCache cache,
+                                                       TenistasNegativeCache negativeCache,
                                                        TenistasStorageCsv csvStorage,
                                                        TenistasStorageJson jsonStorage,
                                                        TenistasNotifications notifications) {
-        return new TenistasServiceImpl(localRepo, remoteRepo, cache, csvStorage, jsonStorage, notifications);
+        return new TenistasServiceImpl(localRepo, remoteRepo, cache, negativeCache, csvStorage, jsonStorage, notifications)
+                .fullReload(Boolean.parseBoolean(configProperties.getProperty("refresh.fullReload", "false").trim()));
     }
 }
@@ -4,8 +4,10 @@ import dev.joseluisgs.database.TenistaEntity;
 import dev.joseluisgs.dto.TenistaDto;
 import dev.joseluisgs.models.Tenista;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 /**
  * Mapeador de Tenista
@@ -53,9 +55,9 @@ public class TenistaMapper {
                 tenista.getPeso(),
                 tenista.getPuntos(),
                 tenista.getMano().name(),
-                tenista.getFechaNacimiento().toString(),
-                tenista.getCreatedAt().toString(),
-                tenista.getUpdatedAt().toString(),
+                tenista.getFechaNacimiento().toEpochDay(),
+                toEpochMilli(tenista.getCreatedAt()),
+                toEpochMilli(tenista.getUpdatedAt()),
                 tenista.isDeleted()
         );
     }
@@ -69,10 +71,19 @@ public class TenistaMapper {
                 tenistaEntity.peso(),
                 tenistaEntity.puntos(),
                 Tenista.Mano.valueOf(tenistaEntity.mano()),
-                LocalDate.parse(tenistaEntity.fecha_nacimiento()),
-                tenistaEntity.created_at() != null ? LocalDateTime.parse(tenistaEntity.created_at()) : LocalDateTime.now(),
-                tenistaEntity.updated_at() != null ? LocalDateTime.parse(tenistaEntity.updated_at()) : LocalDateTime.now(),
+                LocalDate.ofEpochDay(tenistaEntity.fecha_nacimiento()),
+                tenistaEntity.created_at() != null ? fromEpochMilli(tenistaEntity.created_at()) : LocalDateTime.now(),
+                tenistaEntity.updated_at() != null ? fromEpochMilli(tenistaEntity.updated_at()) : LocalDateTime.now(),
                 tenistaEntity.is_deleted() != null ? tenistaEntity.is_deleted() : false
         );
     }
+
+    // Las fechas con hora se guardan en la base de datos como milisegundos desde epoch, tomándolas como UTC
+    public static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    public static LocalDateTime fromEpochMilli(long epochMilli) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneOffset.UTC);
+    }
 }
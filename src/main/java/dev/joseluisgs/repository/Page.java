@@ -0,0 +1,30 @@
+package dev.joseluisgs.repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Una página de resultados y el cursor para pedir la siguiente, vacío si es la última.
+ */
+public record Page<ID, T>(List<T> items, PageCursor<ID> nextCursor) {
+
+    public Optional<PageCursor<ID>> next() {
+        return Optional.ofNullable(nextCursor);
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    /**
+     * Monta la página a partir de lo leído con el cursor: si viene llena puede haber más,
+     * y la siguiente empieza tras la clave del último elemento.
+     */
+    public static <ID, T> Page<ID, T> of(List<T> items, PageCursor<ID> cursor, Function<T, ID> keyOf) {
+        if (items.size() < cursor.size()) {
+            return new Page<>(items, null);
+        }
+        return new Page<>(items, new PageCursor<>(keyOf.apply(items.getLast()), cursor.size()));
+    }
+}
@@ -0,0 +1,18 @@
+package dev.joseluisgs.repository;
+
+/**
+ * Cursor de paginación por clave (keyset): la página empieza justo después de la clave after y trae como mucho size elementos.
+ * No usa OFFSET, así que pedir una página lejana cuesta lo mismo que la primera.
+ * after es null en la primera página.
+ */
+public record PageCursor<ID>(ID after, int size) {
+    public PageCursor {
+        if (size <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser mayor que 0");
+        }
+    }
+
+    public static <ID> PageCursor<ID> first(int size) {
+        return new PageCursor<>(null, size);
+    }
+}
@@ -8,6 +8,9 @@ import java.util.List;
 public interface Repository<ID, T, E> {
     Mono<Either<E, List<T>>> getAll();
 
+    // Una página ordenada por clave, sin cargar todo de golpe
+    Mono<Either<E, Page<ID, T>>> getPage(PageCursor<ID> cursor);
+
     Mono<Either<E, T>> getById(ID id);
 
     Mono<Either<E, T>> save(T t);
@@ -1,5 +1,6 @@
 package dev.joseluisgs.repository;
 
+import dev.joseluisgs.database.GroupCommitWriter;
 import dev.joseluisgs.database.JdbiManager;
 import dev.joseluisgs.database.TenistasDao;
 import dev.joseluisgs.error.TenistaError;
@@ -8,31 +9,55 @@ import dev.joseluisgs.models.Tenista;
 import io.vavr.control.Either;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
 import javax.inject.Singleton;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Singleton
-public class TenistasRepositoryLocal implements TenistasRepository {
+public class TenistasRepositoryLocal implements TenistasRepository, AutoCloseable {
+    public static final int DEFAULT_BATCH_SIZE = 1000;
     private final Logger logger = LoggerFactory.getLogger(TenistasRepositoryLocal.class);
     JdbiManager<TenistasDao> db;
+    // Filas que se envían juntas en las inserciones por lotes
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private final Object reloadLock = new Object();
+    // Las escrituras sueltas (save, update y delete) van por un único escritor que las confirma por lotes
+    private final GroupCommitWriter<TenistasDao> writer;
 
 
     public TenistasRepositoryLocal(JdbiManager<TenistasDao> jdbiManager) {
+        this(jdbiManager, false);
+    }
+
+    // Con keepData no se borran los tenistas de la ejecución anterior (database.keepData, le viene bien a la foto de la cache)
+    public TenistasRepositoryLocal(JdbiManager<TenistasDao> jdbiManager, boolean keepData) {
         this.db = jdbiManager;
-        init();
+        init(keepData);
+        this.writer = new GroupCommitWriter<>(jdbiManager);
     }
 
-    private void init() {
+    public TenistasRepositoryLocal batchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    private void init(boolean keepData) {
         logger.debug("Inicializando el repositorio local");
         db.with(dao -> {
             logger.debug("Creando tabla si no existe");
-            dao.createTable(); // Creamos la tabla si no existe
-            logger.debug("Borrando todos los registros");
-            dao.removeAll(); // Borramos todos los registros porque es local
+            dao.createSchema(); // Creamos la tabla y sus índices si no existen, o migramos la de una versión anterior
+            if (!keepData) {
+                logger.debug("Borrando todos los registros");
+                dao.removeAll(); // Borramos todos los registros porque es local
+            }
             return null;
         });
     }
@@ -43,9 +68,7 @@ public class TenistasRepositoryLocal implements TenistasRepository {
         logger.debug("Obteniendo todos los tenistas de la bd");
 
         return Mono.fromSupplier(() -> {
-                    var lista = db.with(TenistasDao::selectAll).stream()
-                            .map(TenistaMapper::toTenista)
-                            .toList();
+                    var lista = db.with(TenistasDao::selectAll);
                     return Either.<TenistaError, List<Tenista>>right(lista);
                 }).subscribeOn(Schedulers.boundedElastic())
                 .onErrorResume(e -> {
@@ -54,12 +77,70 @@ public class TenistasRepositoryLocal implements TenistasRepository {
                 });
     }
 
+    /**
+     * Todos los tenistas uno a uno según se leen de la base de datos, sin cargar la tabla en memoria.
+     * Flux.fromStream respeta la demanda del suscriptor y cierra el cursor (y devuelve la conexión) al terminar o cancelar.
+     * Los errores llegan como error del Flux.
+     */
+    public Flux<Tenista> streamAll() {
+        logger.debug("Recorriendo todos los tenistas de la bd");
+        return Flux.fromStream(() -> db.stream(TenistasDao::streamAll))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Mono<Either<TenistaError, Page<Long, Tenista>>> getPage(PageCursor<Long> cursor) {
+        logger.debug("Obteniendo página de {} tenistas tras el id {} de la bd", cursor.size(), cursor.after());
+        // Los ids empiezan en 1, así que la primera página va desde 0
+        long lastId = cursor.after() == null ? 0L : cursor.after();
+
+        return Mono.fromSupplier(() -> {
+                    var lista = db.with(dao -> dao.selectPage(lastId, cursor.size()));
+                    return Either.<TenistaError, Page<Long, Tenista>>right(Page.of(lista, cursor, Tenista::getId));
+                }).subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(e -> Mono.just(Either.left(new TenistaError.DatabaseError("No se ha obtenido la página de tenistas ->" + e.getMessage()))));
+    }
+
+    // Varios tenistas por id en una sola consulta, los que no existen no se devuelven
+    public Mono<Either<TenistaError, List<Tenista>>> getByIds(Collection<Long> ids) {
+        logger.debug("Obteniendo {} tenistas por id de la bd", ids.size());
+        if (ids.isEmpty()) {
+            return Mono.just(Either.right(List.of()));
+        }
+        return query(dao -> dao.selectByIds(ids));
+    }
+
+    // Consultas filtradas: el filtro, el orden y el límite los hace la base de datos con sus índices
+
+    public Mono<Either<TenistaError, List<Tenista>>> getByPais(String pais) {
+        logger.debug("Obteniendo los tenistas de {} de la bd", pais);
+        return query(dao -> dao.selectByPais(pais));
+    }
+
+    public Mono<Either<TenistaError, List<Tenista>>> getByPuntosGreaterThan(int puntos) {
+        logger.debug("Obteniendo los tenistas con más de {} puntos de la bd", puntos);
+        return query(dao -> dao.selectByPuntosGreaterThan(puntos));
+    }
+
+    public Mono<Either<TenistaError, List<Tenista>>> getRanking(int limit) {
+        logger.debug("Obteniendo los {} tenistas con más puntos de la bd", limit);
+        return query(dao -> dao.selectTopByPuntos(limit));
+    }
+
+    private Mono<Either<TenistaError, List<Tenista>>> query(JdbiManager.HandleFunction<TenistasDao, List<Tenista>> select) {
+        return Mono.fromSupplier(() -> {
+                    var lista = db.with(select);
+                    return Either.<TenistaError, List<Tenista>>right(lista);
+                }).subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(e -> Mono.just(Either.left(new TenistaError.DatabaseError("No se han obtenido los tenistas ->" + e.getMessage()))));
+    }
+
     @Override
     public Mono<Either<TenistaError, Tenista>> getById(Long id) {
         logger.debug("Obteniendo tenista por ID: {} de la bd", id);
 
         return Mono.fromSupplier(() -> {
-                    var tenista = db.with(dao -> dao.selectById(id)).map(TenistaMapper::toTenista);
+                    var tenista = db.with(dao -> dao.selectById(id));
                     // Devolvemos el tenista o un error si no existe
                     return tenista.map(Either::<TenistaError, Tenista>right).orElseGet(() -> Either.left(new TenistaError.DatabaseError("No se ha encontrado tenista en la bd con id " + id)));
                 }).subscribeOn(Schedulers.boundedElastic())
@@ -71,7 +152,7 @@ public class TenistasRepositoryLocal implements TenistasRepository {
         /**
          * Otra forma de hacerlo con if else que te liarás menos ;)
          * return Mono.fromSupplier(() -> {
-         *            var tenista = db.with(dao -> dao.selectById(id)).map(TenistaMapper::toTenista);
+         *            var tenista = db.with(dao -> dao.selectById(id));
          *            // Devolvemos el tenista o un error si no existe
          *            if (tenista.isPresent()) {
          *            return Either.right(tenista.get());
@@ -85,28 +166,23 @@ public class TenistasRepositoryLocal implements TenistasRepository {
     public Mono<Either<TenistaError, Tenista>> save(Tenista tenista) {
         logger.debug("Guardando tenista {} en la bd", tenista);
 
-        return Mono.fromSupplier(() -> {
+        return Mono.defer(() -> {
                     var timeStamp = LocalDateTime.now();
                     var tenistaEntity = TenistaMapper.toTenistaEntity(tenista);
-                    var id = db.with(dao -> dao.insert(
-                            tenistaEntity.nombre(),
-                            tenistaEntity.pais(),
-                            tenistaEntity.altura(),
-                            tenistaEntity.peso(),
-                            tenistaEntity.puntos(),
-                            tenistaEntity.mano(),
-                            tenistaEntity.fecha_nacimiento(),
-                            timeStamp.toString(),
-                            timeStamp.toString()
-                    ));
-
-                    if (id == null) {
-                        return Either.<TenistaError, Tenista>left(new TenistaError.DatabaseError("No se ha guardado tenista en la bd"));
-                    }
-
-                    // Devolvemos el tenista con el id y las fechas
-                    tenista.id(id).createdAt(timeStamp).updatedAt(timeStamp);
-                    return Either.<TenistaError, Tenista>right(tenista);
+                    return writer.submit(dao -> dao.insert(
+                                    tenistaEntity.nombre(),
+                                    tenistaEntity.pais(),
+                                    tenistaEntity.altura(),
+                                    tenistaEntity.peso(),
+                                    tenistaEntity.puntos(),
+                                    tenistaEntity.mano(),
+                                    tenistaEntity.fecha_nacimiento(),
+                                    TenistaMapper.toEpochMilli(timeStamp),
+                                    TenistaMapper.toEpochMilli(timeStamp)
+                            ))
+                            // Devolvemos el tenista con el id y las fechas
+                            .map(id -> Either.<TenistaError, Tenista>right(tenista.id(id).createdAt(timeStamp).updatedAt(timeStamp)))
+                            .defaultIfEmpty(Either.left(new TenistaError.DatabaseError("No se ha guardado tenista en la bd")));
                 }).subscribeOn(Schedulers.boundedElastic())
                 .onErrorResume(e -> {
                     //logger.error("Error insertando tenista con id", e);
@@ -118,12 +194,12 @@ public class TenistasRepositoryLocal implements TenistasRepository {
     public Mono<Either<TenistaError, Tenista>> update(Long id, Tenista tenista) {
         logger.debug("Actualizando tenista con id {} {} en la bd", id, tenista);
 
-        return Mono.fromSupplier(() -> {
+        return Mono.defer(() -> {
 
                     var updatedAt = LocalDateTime.now();
                     var tenistaEntity = TenistaMapper.toTenistaEntity(tenista);
 
-                    int updateCount = db.with(dao -> dao.update(
+                    return writer.submit(dao -> dao.update(
                             id,
                             tenistaEntity.nombre(),
                             tenistaEntity.pais(),
@@ -132,17 +208,17 @@ public class TenistasRepositoryLocal implements TenistasRepository {
                             tenistaEntity.puntos(),
                             tenistaEntity.mano(),
                             tenistaEntity.fecha_nacimiento(),
-                            updatedAt.toString(),
+                            TenistaMapper.toEpochMilli(updatedAt),
                             tenistaEntity.is_deleted()
-                    ));
+                    )).map(updateCount -> {
+                        // Si no se ha actualizado devolvemos un error
+                        if (updateCount == 0) {
+                            return Either.<TenistaError, Tenista>left(new TenistaError.NotFound(id));
+                        }
 
-                    // Si no se ha actualizado devolvemos un error
-                    if (updateCount == 0) {
-                        return Either.<TenistaError, Tenista>left(new TenistaError.NotFound(id));
-                    }
-
-                    tenista.setUpdatedAt(updatedAt);
-                    return Either.<TenistaError, Tenista>right(tenista);
+                        tenista.setUpdatedAt(updatedAt);
+                        return Either.<TenistaError, Tenista>right(tenista);
+                    });
                 })
                 .subscribeOn(Schedulers.boundedElastic())
                 .onErrorResume(e -> {
@@ -154,8 +230,8 @@ public class TenistasRepositoryLocal implements TenistasRepository {
     @Override
     public Mono<Either<TenistaError, Long>> delete(Long id) {
         logger.debug("Borrando tenista con id {} en la bd", id);
-        return Mono.fromSupplier(() -> {
-                    int deleteCount = db.with(dao -> dao.delete(id));
+        return writer.submit(dao -> dao.delete(id))
+                .map(deleteCount -> {
                     if (deleteCount == 0) {
                         return Either.<TenistaError, Long>left(new TenistaError.NotFound(id));
                     }
@@ -182,25 +258,11 @@ public class TenistasRepositoryLocal implements TenistasRepository {
     public Mono<Either<TenistaError, Integer>> saveAll(List<Tenista> tenistas) {
         logger.debug("Guardando {} tenistas en la bd", tenistas.size());
         return Mono.fromSupplier(() -> {
-                    // Lo hacemos en una transacción
+                    // Lo hacemos en una transacción y por lotes
                     db.useTransaction(dao -> {
                         var timeStamp = LocalDateTime.now();
                         var tenistasEntity = tenistas.stream().map(TenistaMapper::toTenistaEntity).toList();
-                        tenistasEntity.forEach(t -> {
-                            // Insertamos
-                            dao.insert(
-                                    t.nombre(),
-                                    t.pais(),
-                                    t.altura(),
-                                    t.peso(),
-                                    t.puntos(),
-                                    t.mano(),
-                                    t.fecha_nacimiento(),
-                                    timeStamp.toString(),
-                                    timeStamp.toString()
-                            );
-                        });
-
+                        dao.insertBatch(tenistasEntity, TenistaMapper.toEpochMilli(timeStamp), batchSize);
                     });
                     return Either.<TenistaError, Integer>right(tenistas.size());
                 }).subscribeOn(Schedulers.boundedElastic())
@@ -210,5 +272,107 @@ public class TenistasRepositoryLocal implements TenistasRepository {
                 });
     }
 
+    /**
+     * Deja la base de datos igual que la lista, con los ids de la lista: inserta los nuevos, actualiza solo los que
+     * han cambiado y borra los que ya no están. Todo en una transacción, así nadie ve la tabla a medias.
+     * Devuelve el número de filas escritas o borradas, 0 si no ha cambiado nada.
+     */
+    public Mono<Either<TenistaError, Integer>> syncAll(List<Tenista> tenistas) {
+        logger.debug("Sincronizando {} tenistas con la bd", tenistas.size());
+        return Mono.fromSupplier(() -> {
+                    var now = TenistaMapper.toEpochMilli(LocalDateTime.now());
+                    var tenistasEntity = tenistas.stream().map(TenistaMapper::toTenistaEntity).toList();
+                    Set<Long> ids = tenistas.stream().map(Tenista::getId).collect(Collectors.toSet());
+                    int cambios = db.withTransaction(dao -> {
+                        int escritos = (int) Arrays.stream(dao.upsertBatch(tenistasEntity, now, batchSize))
+                                .filter(count -> count > 0)
+                                .count();
+                        var borrados = dao.selectIds().stream().filter(id -> !ids.contains(id)).toList();
+                        if (!borrados.isEmpty()) {
+                            dao.deleteBatch(borrados);
+                        }
+                        return escritos + borrados.size();
+                    });
+                    logger.debug("Sincronización terminada con {} cambios", cambios);
+                    return Either.<TenistaError, Integer>right(cambios);
+                }).subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(e -> {
+                    //logger.error("Error sincronizando tenistas", e);
+                    return Mono.just(Either.left(new TenistaError.DatabaseError("No se han sincronizado los tenistas en la bd ->" + e.getMessage())));
+                });
+    }
+
+    /**
+     * Recarga completa: se cargan los tenistas, con sus ids, en una tabla en sombra y se cambia por la actual.
+     * Quien lee mientras tanto ve los datos anteriores y luego los nuevos, nunca la tabla vacía o a medias.
+     * Llenar la sombra y cambiarla van en la misma transacción, así ninguna escritura suelta del escritor
+     * se cuela entre medias y se pierde con la tabla anterior: o va antes (y la recarga la sustituye como haría syncAll)
+     * o después, ya sobre la tabla nueva.
+     * Devuelve el número de filas nuevas, cambiadas o borradas. Si es 0 no se cambia la tabla.
+     */
+    public Mono<Either<TenistaError, Integer>> replaceAll(List<Tenista> tenistas) {
+        logger.debug("Recargando {} tenistas en la bd", tenistas.size());
+        return Mono.fromSupplier(() -> {
+                    var now = TenistaMapper.toEpochMilli(LocalDateTime.now());
+                    var tenistasEntity = tenistas.stream().map(TenistaMapper::toTenistaEntity).toList();
+                    // Solo hay una tabla en sombra, así que las recargas van de una en una
+                    int cambios;
+                    synchronized (reloadLock) {
+                        cambios = db.withTransaction(dao -> {
+                            dao.createShadow();
+                            dao.insertShadowBatch(tenistasEntity, now, batchSize);
+                            int count = dao.countShadowChanges();
+                            if (count == 0) {
+                                dao.dropShadow();
+                                return 0;
+                            }
+                            dao.keepShadowDates();
+                            dao.swapShadow();
+                            return count;
+                        });
+                    }
+                    logger.debug("Recarga terminada con {} cambios", cambios);
+                    return Either.<TenistaError, Integer>right(cambios);
+                }).subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(e -> {
+                    //logger.error("Error recargando tenistas", e);
+                    return Mono.just(Either.left(new TenistaError.DatabaseError("No se han recargado los tenistas en la bd ->" + e.getMessage())));
+                });
+    }
+
+    // Espera a que se escriban las escrituras pendientes y cierra la base de datos, que es solo de este repositorio
+    @Override
+    public void close() {
+        logger.debug("Cerrando el repositorio local");
+        writer.close();
+        db.close();
+    }
+
+    // Como saveAll, pero devuelve los tenistas con su id y sus fechas, como save
+    public Mono<Either<TenistaError, List<Tenista>>> saveAllAndGet(List<Tenista> tenistas) {
+        logger.debug("Guardando {} tenistas en la bd y obteniendo sus ids", tenistas.size());
+        if (tenistas.isEmpty()) {
+            return Mono.just(Either.right(List.of()));
+        }
+        return Mono.fromSupplier(() -> {
+                    var timeStamp = LocalDateTime.now();
+                    var tenistasEntity = tenistas.stream().map(TenistaMapper::toTenistaEntity).toList();
+                    // Dentro de la transacción nadie más escribe y la tabla no tiene AUTOINCREMENT,
+                    // así los ids del lote son consecutivos y terminan en el último generado
+                    long lastId = db.withTransaction(dao -> {
+                        dao.insertBatch(tenistasEntity, TenistaMapper.toEpochMilli(timeStamp), batchSize);
+                        return dao.lastInsertId();
+                    });
+                    long firstId = lastId - tenistas.size() + 1;
+                    for (int i = 0; i < tenistas.size(); i++) {
+                        tenistas.get(i).id(firstId + i).createdAt(timeStamp).updatedAt(timeStamp);
+                    }
+                    return Either.<TenistaError, List<Tenista>>right(tenistas);
+                }).subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(e -> {
+                    //logger.error("Error insertando tenistas", e);
+                    return Mono.just(Either.left(new TenistaError.DatabaseError("No se han insertando tenistas en la bd ->" + e.getMessage())));
+                });
+    }
 
 }
@@ -9,9 +9,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
+import retrofit2.HttpException;
 
 import javax.inject.Singleton;
 import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
 
 @Singleton
@@ -40,6 +42,22 @@ public class TenistasRepositoryRemote implements TenistasRepository {
     }
 
 
+    @Override
+    public Mono<Either<TenistaError, Page<Long, Tenista>>> getPage(PageCursor<Long> cursor) {
+        logger.debug("Obteniendo página de {} tenistas tras el id {} de la api rest", cursor.size(), cursor.after());
+        // La api no pagina, así que se trae todo y se corta aquí con el mismo criterio que en local
+        long lastId = cursor.after() == null ? 0L : cursor.after();
+
+        return getAll().map(result -> result.map(tenistas -> {
+            var pagina = tenistas.stream()
+                    .filter(t -> t.getId() > lastId)
+                    .sorted(Comparator.comparing(Tenista::getId))
+                    .limit(cursor.size())
+                    .toList();
+            return Page.of(pagina, cursor, Tenista::getId);
+        }));
+    }
+
     @Override
     public Mono<Either<TenistaError, Tenista>> getById(Long id) {
         logger.debug("Obteniendo tenista con id {} de la api rest", id);
@@ -50,6 +68,10 @@ public class TenistasRepositoryRemote implements TenistasRepository {
                 .subscribeOn(Schedulers.boundedElastic())
                 .onErrorResume(e -> {
                     //logger.error("Error obteniendo tenista con id {}", id, e);
+                    // Solo un 404 dice que no existe, el resto son fallos de la api y no sabemos nada del tenista
+                    if (e instanceof HttpException http && http.code() == 404) {
+                        return Mono.just(Either.left(new TenistaError.NotFound(id)));
+                    }
                     return Mono.just(Either.left(new TenistaError.RemoteError("No se ha encontrado tenista en la api rest con id " + id + " -> " + e.getMessage())));
                 });
         //.switchIfEmpty(Mono.just(Either.left(new TenistaError.RemoteError("sin respuesta de la api"))));
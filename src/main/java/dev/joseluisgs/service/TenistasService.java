@@ -1,5 +1,6 @@
 package dev.joseluisgs.service;
 
+import dev.joseluisgs.cache.CacheStats;
 import dev.joseluisgs.error.TenistaError;
 import dev.joseluisgs.models.Tenista;
 import io.vavr.control.Either;
@@ -15,6 +16,16 @@ public interface TenistasService {
 
     Mono<Either<TenistaError, Tenista>> getById(long id);
 
+    // Los que existen, en el orden pedido
+    Mono<Either<TenistaError, List<Tenista>>> getByIds(List<Long> ids);
+
+    // Consultas filtradas en la base de datos local, de más a menos puntos
+    Mono<Either<TenistaError, List<Tenista>>> getByPais(String pais);
+
+    Mono<Either<TenistaError, List<Tenista>>> getByPuntosGreaterThan(int puntos);
+
+    Mono<Either<TenistaError, List<Tenista>>> getRanking(int limit);
+
     Mono<Either<TenistaError, Tenista>> save(Tenista tenista);
 
     Mono<Either<TenistaError, Tenista>> update(long id, Tenista tenista);
@@ -30,4 +41,6 @@ public interface TenistasService {
     void disableAutoRefresh();
 
     void loadData();
+
+    CacheStats getCacheStats();
 }
\ No newline at end of file
@@ -1,6 +1,9 @@
 package dev.joseluisgs.service;
 
+import dev.joseluisgs.cache.AsyncLoadingCache;
+import dev.joseluisgs.cache.CacheStats;
 import dev.joseluisgs.cache.TenistasCache;
+import dev.joseluisgs.cache.TenistasNegativeCache;
 import dev.joseluisgs.dto.TenistaDto;
 import dev.joseluisgs.error.TenistaError;
 import dev.joseluisgs.mapper.TenistaMapper;
@@ -24,9 +27,17 @@ import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.io.File;
 import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
 import static reactor.core.scheduler.Schedulers.boundedElastic;
 
@@ -43,21 +54,36 @@ public class TenistasServiceImpl implements TenistasService {
     private final TenistasRepositoryLocal localRepository;
     private final TenistasRepositoryRemote remoteRepository;
     private final TenistasCache cache;
+    // Ids que sabemos que no existen, para no repetir la consulta a la api
+    private final TenistasNegativeCache negativeCache;
     private final TenistasStorageCsv csvStorage;
     private final TenistasStorageJson jsonStorage;
     private final TenistasNotifications notificationsService;
     // Para el refresco de datos, Disposable es una interfaz que nos permite cancelar la suscripción
     // AtomicReference es una clase que nos permite tener una referencia atómica, es decir, que no se puede modificar
     private final AtomicReference<Disposable> currentSubscription = new AtomicReference<>();
+    // Cache con carga asíncrona para getById y getByIds, guarda en la cache lo que carga y en la negativa lo que no existe.
+    // Todas las escrituras en la cache pasan por ella, así una carga en curso no deja un tenista antiguo
+    private final AsyncLoadingCache<Long, Tenista> loadingCache;
+    // Si el refresco recarga la tabla entera (en sombra) en vez de sincronizar solo los cambios
+    private boolean fullReload = false;
 
     @Inject
-    public TenistasServiceImpl(TenistasRepositoryLocal localRepository, TenistasRepositoryRemote remoteRepository, TenistasCache cache, TenistasStorageCsv csvStorage, TenistasStorageJson jsonStorage, TenistasNotifications notificationsService) {
+    public TenistasServiceImpl(TenistasRepositoryLocal localRepository, TenistasRepositoryRemote remoteRepository, TenistasCache cache, TenistasNegativeCache negativeCache, TenistasStorageCsv csvStorage, TenistasStorageJson jsonStorage, TenistasNotifications notificationsService) {
         this.localRepository = localRepository;
         this.remoteRepository = remoteRepository;
         this.cache = cache;
+        this.negativeCache = negativeCache;
         this.csvStorage = csvStorage;
         this.jsonStorage = jsonStorage;
         this.notificationsService = notificationsService;
+        this.loadingCache = new AsyncLoadingCache<>(cache, this::loadById, this::loadByIds)
+                .negativeCache(negativeCache, TenistaError.NotFound::new);
+    }
+
+    public TenistasServiceImpl fullReload(boolean fullReload) {
+        this.fullReload = fullReload;
+        return this;
     }
 
     public Flux<Notification<TenistaDto>> getNotifications() {
@@ -73,51 +99,122 @@ public class TenistasServiceImpl implements TenistasService {
 
         } else {
             // remoteRepository.getAll() devuelve un Mono<List<Tenista>>
-            // Luego de obtener los datos remotos, los guardamos en el repositorio local
+            // Luego de obtener los datos remotos, sincronizamos el repositorio local (solo se escribe lo que ha cambiado)
             // Y devolvemos los datos locales
             return remoteRepository.getAll().subscribeOn(boundedElastic())
-                    .flatMap(remoteTenistas ->
-                            localRepository.removeAll()
-                                    .then(localRepository.saveAll(remoteTenistas.get()))
-                                    .then(localRepository.getAll())
-                                    .doOnNext(tenistas -> cache.clear())
-                    );
+                    .flatMap(remoteTenistas -> {
+                        var inicio = syncStart();
+                        return localRepository.syncAll(remoteTenistas.get())
+                                .then(localRepository.getAll())
+                                .doOnNext(tenistas -> {
+                                    syncCache(tenistas, inicio);
+                                    negativeCache.clear();
+                                });
+                    });
         }
     }
 
 
+    @Override
+    public Mono<Either<TenistaError, List<Tenista>>> getByPais(String pais) {
+        logger.debug("Obteniendo tenistas de: {}", pais);
+        return localRepository.getByPais(pais).subscribeOn(boundedElastic());
+    }
+
+    @Override
+    public Mono<Either<TenistaError, List<Tenista>>> getByPuntosGreaterThan(int puntos) {
+        logger.debug("Obteniendo tenistas con más de {} puntos", puntos);
+        return localRepository.getByPuntosGreaterThan(puntos).subscribeOn(boundedElastic());
+    }
+
+    @Override
+    public Mono<Either<TenistaError, List<Tenista>>> getRanking(int limit) {
+        logger.debug("Obteniendo los {} primeros del ranking", limit);
+        return localRepository.getRanking(limit).subscribeOn(boundedElastic());
+    }
+
     @Override
     public Mono<Either<TenistaError, Tenista>> getById(long id) {
         logger.debug("Obteniendo tenista por id: {}", id);
 
-        // Primero buscamos en la cache, si está, lo devolvemos
-        Tenista cachedTenista = cache.get(id);
-        if (cachedTenista != null) {
-            logger.debug("Tenista encontrado en cache");
-            return Mono.just(Either.right(cachedTenista));
+        // Primero las caches con el id primitivo: con cache.type=LONG un acierto no crea ningún objeto
+        Tenista cached = cache.get(id);
+        if (cached != null) {
+            return Mono.just(Either.right(cached));
+        }
+        TenistaError missing = negativeCache.get(id);
+        if (missing != null) {
+            return Mono.just(Either.left(missing));
         }
+        // Si no está ni sabemos que no existe, lo cargamos de los repositorios compartiendo la carga
+        // si ya hay otra en curso de este id. Si no existe queda apuntado en la cache negativa
+        return loadingCache.load(id)
+                .map(Either::<TenistaError, Tenista>right)
+                .defaultIfEmpty(Either.left(new TenistaError.NotFound(id)))
+                .onErrorResume(LoadFailure.class, e -> Mono.just(Either.left(e.error)));
+    }
 
+    @Override
+    public Mono<Either<TenistaError, List<Tenista>>> getByIds(List<Long> ids) {
+        logger.debug("Obteniendo tenistas por ids: {}", ids);
+
+        // Los que no están en la cache se cargan juntos, con una sola consulta a la base de datos
+        return loadingCache.getAll(ids)
+                .map(found -> Either.<TenistaError, List<Tenista>>right(ids.stream().distinct().filter(found::containsKey).map(found::get).toList()))
+                .onErrorResume(LoadFailure.class, e -> Mono.just(Either.left(e.error)));
+    }
+
+    // Cargador de la cache: buscamos en local y luego en remoto, vacío si no existe
+    private Mono<Tenista> loadById(Long id) {
         return localRepository.getById(id).subscribeOn(boundedElastic())
                 .flatMap(resultLocal -> {
                     if (resultLocal.isRight()) {
-                        cache.put(id, resultLocal.get());
                         logger.debug("Tenista encontrado en repositorio local");
-                        return Mono.just(resultLocal);
+                        return Mono.just(resultLocal.get());
+                    }
+                    return loadFromRemote(id);
+                });
+    }
+
+    // Cargador masivo de la cache: los que están en local en una sola consulta y el resto en remoto
+    private Mono<Map<Long, Tenista>> loadByIds(Set<Long> ids) {
+        return localRepository.getByIds(ids).subscribeOn(boundedElastic())
+                .flatMapMany(resultLocal -> {
+                    List<Tenista> locales = resultLocal.isRight() ? resultLocal.get() : List.of();
+                    Set<Long> enLocal = locales.stream().map(Tenista::getId).collect(Collectors.toSet());
+                    return Flux.fromIterable(locales)
+                            .concatWith(Flux.fromIterable(ids)
+                                    .filter(id -> !enLocal.contains(id))
+                                    .flatMap(this::loadFromRemote));
+                })
+                .collectMap(Tenista::getId);
+    }
+
+    // Buscamos en el repositorio remoto y si lo encontramos lo guardamos en local.
+    // Solo un NotFound es vacío (y va a la cache negativa), cualquier otro error hace fallar la carga
+    private Mono<Tenista> loadFromRemote(Long id) {
+        return remoteRepository.getById(id).subscribeOn(boundedElastic())
+                .flatMap(resultRemote -> {
+                    if (resultRemote.isRight()) {
+                        logger.debug("Tenista encontrado en repositorio remoto");
+                        return localRepository.save(resultRemote.get()).subscribeOn(boundedElastic())
+                                .map(saved -> saved.isRight() ? saved.get() : resultRemote.get());
                     }
-                    // Buscamos en el repositorio remoto
-                    return remoteRepository.getById(id).subscribeOn(boundedElastic())
-                            .flatMap(resultRemote -> { // Si lo encontramos, lo guardamos en local y en cache
-                                if (resultRemote.isRight()) { // Si lo encontramos, lo guardamos en local y en cache
-                                    logger.debug("Tenista encontrado en repositorio remoto");
-                                    return localRepository.save(resultRemote.get()).subscribeOn(boundedElastic())
-                                            .doOnNext(saved -> cache.put(id, saved.get())); // Guardamos en cache
-
-                                }
-                                // Si no encontramos el tenista, devolvemos un error
-                                return Mono.just(Either.left(new TenistaError.NotFound(id)));
-                            });
+                    if (resultRemote.getLeft() instanceof TenistaError.NotFound) {
+                        return Mono.empty();
+                    }
+                    return Mono.error(new LoadFailure(resultRemote.getLeft()));
                 });
+    }
+
+    // Error de carga que no es un "no existe": la cache no lo guarda y getById lo devuelve tal cual
+    private static final class LoadFailure extends RuntimeException {
+        private final TenistaError error;
 
+        LoadFailure(TenistaError error) {
+            super(error.getMessage(), null, false, false);
+            this.error = error;
+        }
     }
 
 
@@ -138,8 +235,8 @@ public class TenistasServiceImpl implements TenistasService {
                 logger.debug("Tenista guardado remotamente: {}", resultRemote.get());
                 return localRepository.save(resultRemote.get()).subscribeOn(boundedElastic()) // Guardamos en local
                         .doOnNext(saved -> { // Si se ha guardado correctamente, lo guardamos en la cache y notificamos
-                            cache.put(saved.get().getId(), saved.get());
-                            notificationsService.send(new Notification<>(
+                            loadingCache.put(saved.get().getId(), saved.get());
+                            sendNotification(new Notification<>(
                                     Notification.Type.CREATE,
                                     TenistaMapper.toTenistaDto(saved.get()),
                                     "Tenista creado con id: " + saved.get().getId()));
@@ -170,8 +267,8 @@ public class TenistasServiceImpl implements TenistasService {
                         logger.debug("Tenista actualizado remotamente: {}", resultRemote.get());
                         return localRepository.update(id, resultRemote.get()).subscribeOn(boundedElastic()) // Actualizamos en local
                                 .doOnNext(updated -> { // Si se ha actualizado correctamente, lo actualizamos en la cache y notificamos
-                                    cache.put(updated.get().getId(), updated.get());
-                                    notificationsService.send(new Notification<>(
+                                    loadingCache.put(updated.get().getId(), updated.get());
+                                    sendNotification(new Notification<>(
                                             Notification.Type.UPDATE,
                                             TenistaMapper.toTenistaDto(updated.get()),
                                             "Tenista actualizado con id: " + updated.get().getId()));
@@ -201,8 +298,8 @@ public class TenistasServiceImpl implements TenistasService {
                                 // eliminamos de local
                                 return localRepository.delete(id).subscribeOn(boundedElastic())
                                         .doOnNext(deleted -> {
-                                            cache.remove(id);
-                                            notificationsService.send(new Notification<>(
+                                            loadingCache.invalidate(id);
+                                            sendNotification(new Notification<>(
                                                     Notification.Type.DELETE,
                                                     null,
                                                     "Tenista eliminado con id: " + id));
@@ -250,14 +347,25 @@ public class TenistasServiceImpl implements TenistasService {
         logger.debug("Guardando tenistas: {}", tenistas);
         AtomicInteger contador = new AtomicInteger(); // Para contar los tenistas guardados atómicamente
         localRepository.removeAll().subscribeOn(boundedElastic())
-                // lanzamos un flujo de tenistas y los guardamos
+                // lanzamos un flujo de tenistas y los guardamos en remoto
                 .thenMany(Flux.fromIterable(tenistas))
                 .flatMap(remoteRepository::save)
-                .flatMap(remoteTenista -> localRepository.save(remoteTenista.get()))
+                .filter(Either::isRight)
+                .map(Either::get)
+                .collectList()
+                // y en local todos de golpe, con inserciones por lotes
+                .flatMap(localRepository::saveAllAndGet)
                 .doOnNext(saved -> {
-                    contador.incrementAndGet();
-                    cache.put(saved.get().getId(), saved.get());
-                }).blockLast(); // Bloqueamos para esperar a que se guarden todos los tenistas, es el único bloqueante
+                    if (saved.isLeft()) {
+                        logger.error("Error guardando los tenistas importados: {}", saved.getLeft().getMessage());
+                        return;
+                    }
+                    Map<Long, Tenista> guardados = new HashMap<>();
+                    saved.get().forEach(tenista -> guardados.put(tenista.getId(), tenista));
+                    contador.addAndGet(guardados.size());
+                    loadingCache.putAll(guardados);
+                    negativeCache.invalidateAll(guardados.keySet());
+                }).block(); // Bloqueamos para esperar a que se guarden todos los tenistas, es el único bloqueante
         return Either.right(contador.get());
     }
 
@@ -284,8 +392,8 @@ public class TenistasServiceImpl implements TenistasService {
                         return Either.left(result.getLeft());
                     });
         } else {
-            return localRepository.getAll().subscribeOn(boundedElastic())
-                    .flatMap(localTenistas -> csvStorage.exportFile(file, localTenistas.get()))
+            // En local se escribe cada tenista según se lee de la base de datos, sin cargarlos todos
+            return csvStorage.exportFile(file, localRepository.streamAll()).subscribeOn(boundedElastic())
                     // Devolvemos el número de tenistas exportados o el error mapeado
                     .map(result -> {
                         if (result.isRight()) {
@@ -309,8 +417,8 @@ public class TenistasServiceImpl implements TenistasService {
                         return Either.left(result.getLeft());
                     });
         } else {
-            return localRepository.getAll().subscribeOn(boundedElastic())
-                    .flatMap(localTenistas -> jsonStorage.exportFile(file, localTenistas.get()))
+            // En local se escribe cada tenista según se lee de la base de datos, sin cargarlos todos
+            return jsonStorage.exportFile(file, localRepository.streamAll()).subscribeOn(boundedElastic())
                     // Devolvemos el número de tenistas exportados o el error mapeado
                     .map(result -> {
                         if (result.isRight()) {
@@ -365,16 +473,28 @@ public class TenistasServiceImpl implements TenistasService {
     @Override
     public void loadData() {
         logger.debug("Cargando el repositorio local con los datos remotos");
-        localRepository.removeAll().subscribeOn(boundedElastic())
-                .then(remoteRepository.getAll())
-                .flatMap(remoteTenistas -> localRepository.saveAll(remoteTenistas.get())
-                        .doOnNext(savedTenistas -> {
-                            notificationsService.send(new Notification<>(
-                                    Notification.Type.REFRESH,
-                                    null,
-                                    "Nuevos datos disponibles: " + savedTenistas.get()));
-                            cache.clear(); // Limpiamos la cache
-                        }))
+        remoteRepository.getAll().subscribeOn(boundedElastic())
+                // Sincronizamos en vez de borrar y volver a insertar: solo se escribe lo que ha cambiado.
+                // Con recarga completa se carga todo en una tabla en sombra y se cambia por la actual
+                .flatMap(remoteTenistas -> {
+                    var inicio = syncStart();
+                    return (fullReload
+                            ? localRepository.replaceAll(remoteTenistas.get())
+                            : localRepository.syncAll(remoteTenistas.get()))
+                            .doOnNext(cambios -> cambios.peekLeft(error ->
+                                    logger.error("Error guardando los datos remotos: {}", error.getMessage())))
+                            // Si no ha cambiado nada (o ha fallado) no hay que avisar ni tocar la cache
+                            .filter(cambios -> cambios.isRight() && cambios.get() > 0)
+                            .flatMap(cambios -> {
+                                sendNotification(new Notification<>(
+                                        Notification.Type.REFRESH,
+                                        null,
+                                        "Nuevos datos disponibles: " + cambios.get()));
+                                // Leemos lo que ha quedado en local para actualizar solo lo que ha cambiado en la cache
+                                return localRepository.getAll();
+                            })
+                            .doOnNext(tenistas -> syncCache(tenistas, inicio));
+                })
                 // Como son void no necesitamos hacer nada con el resultado me subscribo para que se ejecute
                 .subscribe(
                         next -> logger.debug("Datos refrescados"),
@@ -382,4 +502,59 @@ public class TenistasServiceImpl implements TenistasService {
                 );
     }
 
+    // La bd guarda las fechas en milisegundos, así una fila escrita justo después no queda por delante del inicio
+    private LocalDateTime syncStart() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    /**
+     * Actualizamos en la cache solo los tenistas que han cambiado y quitamos los que ya no existen,
+     * así no perdemos los más usados en cada refresco. Si no tenemos los datos, limpiamos como antes.
+     * Comparamos por id sin leer los valores de la cache (con TIERED habría que deserializar todo L2):
+     * la sincronización solo cambia la fecha de actualización de las filas que escribe, así que han cambiado
+     * las que la tienen desde el inicio. Las que no están en la cache se invalidan igualmente,
+     * por si hay una carga en curso que leyó la fila antigua.
+     */
+    private void syncCache(Either<TenistaError, List<Tenista>> tenistas, LocalDateTime inicio) {
+        if (tenistas.isLeft()) {
+            loadingCache.invalidateAll();
+            return;
+        }
+        Set<Long> cached = cache.keys();
+        Set<Long> actuales = new HashSet<>();
+        Map<Long, Tenista> cambiados = new HashMap<>();
+        List<Long> invalidados = new ArrayList<>();
+        for (Tenista tenista : tenistas.get()) {
+            actuales.add(tenista.getId());
+            if (!tenista.getUpdatedAt().isBefore(inicio)) {
+                if (cached.contains(tenista.getId())) {
+                    cambiados.put(tenista.getId(), tenista);
+                } else {
+                    invalidados.add(tenista.getId());
+                }
+            }
+        }
+        List<Long> borrados = cached.stream().filter(id -> !actuales.contains(id)).toList();
+        invalidados.addAll(borrados);
+        // En lote, cada segmento de la cache se bloquea una sola vez
+        loadingCache.invalidateAll(invalidados);
+        loadingCache.putAll(cambiados);
+        logger.debug("Cache sincronizada, {} tenistas borrados y {} cambiados", borrados.size(), cambiados.size());
+    }
+
+    // Cualquier cambio notificado puede hacer que exista un id que antes no estaba, así que invalidamos la cache negativa
+    private void sendNotification(Notification<TenistaDto> notification) {
+        switch (notification.type()) {
+            case CREATE, UPDATE -> negativeCache.remove(notification.item().id());
+            case REFRESH -> negativeCache.clear();
+            default -> {
+            }
+        }
+        notificationsService.send(notification);
+    }
+
+    @Override
+    public CacheStats getCacheStats() {
+        return loadingCache.stats();
+    }
 }
@@ -1,6 +1,7 @@
 package dev.joseluisgs.storage;
 
 import io.vavr.control.Either;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.io.File;
@@ -15,4 +16,7 @@ public interface SerializationStorage<T, E> {
     Mono<Either<E, List<T>>> importFile(File file);
 
     Mono<Either<E, Integer>> exportFile(File file, List<T> data);
+
+    // Exporta según van llegando los elementos, sin tenerlos todos en memoria
+    Mono<Either<E, Integer>> exportFile(File file, Flux<T> data);
 }
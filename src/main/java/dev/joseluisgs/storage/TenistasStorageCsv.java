@@ -8,23 +8,25 @@ import dev.joseluisgs.models.Tenista;
 import io.vavr.control.Either;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
 import javax.inject.Singleton;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.StandardOpenOption;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import static java.util.Arrays.stream;
 
 @Singleton
 public class TenistasStorageCsv implements TenistasStorage {
     private static final Logger logger = LoggerFactory.getLogger(TenistasStorageCsv.class);
+    private static final String HEADER = "id,nombre,pais,altura,peso,puntos,mano,fecha_nacimiento,createdAt,updatedAt,deletedAt,isDeleted\n";
 
     @Override
     public Mono<Either<TenistaError.StorageError, List<Tenista>>> importFile(File file) {
@@ -43,40 +45,34 @@ public class TenistasStorageCsv implements TenistasStorage {
 
     @Override
     public Mono<Either<TenistaError.StorageError, Integer>> exportFile(File file, List<Tenista> data) {
-        return Mono.fromCallable(() -> {
+        return exportFile(file, Flux.fromIterable(data));
+    }
+
+    @Override
+    public Mono<Either<TenistaError.StorageError, Integer>> exportFile(File file, Flux<Tenista> data) {
+        return Mono.defer(() -> {
                     logger.debug("Exportando Tenistas a CSV asíncrono: {}", file);
-                    return Utils.ensureFileCanExists(file).<Either<TenistaError.StorageError, Integer>>fold(
+                    return Utils.ensureFileCanExists(file).fold(
                             error -> {
                                 logger.error("Error al exportar Tenistas a CSV: {}", error.getMessage());
-                                return Either.left(error);
+                                return Mono.just(Either.<TenistaError.StorageError, Integer>left(error));
                             },
-                            f -> {
-                                try {
-                                    // Write header
-                                    Files.writeString(f.toPath(), "id,nombre,pais,altura,peso,puntos,mano,fecha_nacimiento,createdAt,updatedAt,deletedAt,isDeleted\n", StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-                                    // Write data
-                                    String dataLines = data.stream()
-                                            .map(TenistaMapper::toTenistaDto)
-                                            .map(tenista -> String.join(",",
-                                                    String.valueOf(tenista.id()),
-                                                    tenista.nombre(),
-                                                    tenista.pais(),
-                                                    String.valueOf(tenista.altura()),
-                                                    String.valueOf(tenista.peso()),
-                                                    String.valueOf(tenista.puntos()),
-                                                    tenista.mano(),
-                                                    tenista.fechaNacimiento(),
-                                                    tenista.createdAt(),
-                                                    tenista.updatedAt(),
-                                                    String.valueOf(tenista.isDeleted())))
-                                            .collect(Collectors.joining("\n"));
-                                    Files.writeString(f.toPath(), dataLines, StandardOpenOption.APPEND);
-                                    return Either.right(data.size());
-                                } catch (IOException e) {
-                                    //logger.error("Error al exportar Tenistas a CSV: {}", e.getMessage());
-                                    return Either.left(new TenistaError.StorageError("al exportar Tenistas a CSV: " + e.getMessage()));
-                                }
-                            }
+                            // Cada tenista se escribe en cuanto llega y el fichero se cierra al terminar, con error o cancelación
+                            f -> Mono.using(
+                                    () -> Files.newBufferedWriter(f.toPath(), StandardCharsets.UTF_8),
+                                    writer -> {
+                                        write(writer, HEADER);
+                                        return data.map(TenistaMapper::toTenistaDto)
+                                                .reduce(0, (count, tenista) -> {
+                                                    // Sin salto de línea al final, como siempre
+                                                    write(writer, (count == 0 ? "" : "\n") + toLine(tenista));
+                                                    return count + 1;
+                                                })
+                                                // Volcamos el último bloque aquí y no al cerrar, para que un fallo llegue como error
+                                                .doOnNext(count -> flush(writer));
+                                    },
+                                    this::close
+                            ).map(Either::<TenistaError.StorageError, Integer>right)
                     );
                 }).subscribeOn(Schedulers.boundedElastic())
                 .onErrorResume(e -> {
@@ -85,6 +81,46 @@ public class TenistasStorageCsv implements TenistasStorage {
                 });
     }
 
+    private String toLine(TenistaDto tenista) {
+        return String.join(",",
+                String.valueOf(tenista.id()),
+                tenista.nombre(),
+                tenista.pais(),
+                String.valueOf(tenista.altura()),
+                String.valueOf(tenista.peso()),
+                String.valueOf(tenista.puntos()),
+                tenista.mano(),
+                tenista.fechaNacimiento(),
+                tenista.createdAt(),
+                tenista.updatedAt(),
+                String.valueOf(tenista.isDeleted()));
+    }
+
+    private void write(Writer writer, String text) {
+        try {
+            writer.write(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void flush(Writer writer) {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Mono.using descarta los errores de la limpieza, así que al menos los dejamos en el log
+    private void close(Writer writer) {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            logger.error("Error al cerrar el fichero CSV: {}", e.getMessage());
+        }
+    }
+
     private Either<TenistaError.StorageError, List<Tenista>> readLines(File file) {
         if (!file.exists()) {
             logger.debug("El fichero no existe: {}", file.getAbsolutePath());
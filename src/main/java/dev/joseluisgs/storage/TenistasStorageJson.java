@@ -1,5 +1,7 @@
 package dev.joseluisgs.storage;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
@@ -10,6 +12,7 @@ import dev.joseluisgs.models.Tenista;
 import io.vavr.control.Either;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
@@ -60,26 +63,34 @@ public class TenistasStorageJson implements TenistasStorage {
 
     @Override
     public Mono<Either<TenistaError.StorageError, Integer>> exportFile(File file, List<Tenista> data) {
-        return Mono.fromCallable(() -> {
+        return exportFile(file, Flux.fromIterable(data));
+    }
+
+    @Override
+    public Mono<Either<TenistaError.StorageError, Integer>> exportFile(File file, Flux<Tenista> data) {
+        return Mono.defer(() -> {
                     logger.debug("Exportando Tenistas a JSON asíncrono: {}", file);
-                    return Utils.ensureFileCanExists(file).<Either<TenistaError.StorageError, Integer>>fold(
+                    return Utils.ensureFileCanExists(file).fold(
                             error -> {
                                 logger.error("Error al exportar Tenistas a JSON: {}", error.getMessage());
-                                return Either.left(error);
+                                return Mono.just(Either.<TenistaError.StorageError, Integer>left(error));
                             },
-                            f -> {
-                                try (OutputStream fos = new FileOutputStream(f)) {
-                                    // Jackson nos permite escribir un objeto en un JSON, con pretty printer para que sea más legible
-                                    var jsonMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
-                                    // Convertimos los Tenistas a DTO y los escribimos
-                                    jsonMapper.writeValue(fos, data.stream().map(TenistaMapper::toTenistaDto).toList());
-                                    // Devolvemos el número de elementos exportados
-                                    return Either.right(data.size());
-                                } catch (IOException e) {
-                                    //logger.error("Error al exportar Tenistas a JSON: {}", e.getMessage());
-                                    return Either.left(new TenistaError.StorageError("Error al exportar Tenistas a JSON: " + e.getMessage()));
-                                }
-                            }
+                            // Con el generador de Jackson escribimos el array elemento a elemento, con pretty printer para que sea más legible
+                            f -> Mono.using(
+                                    () -> openArray(f),
+                                    generator -> data.map(TenistaMapper::toTenistaDto)
+                                            .reduce(0, (count, tenista) -> {
+                                                write(() -> generator.writeObject(tenista));
+                                                return count + 1;
+                                            })
+                                            // Cerramos el array solo si todo ha ido bien y lo volcamos aquí y no al cerrar,
+                                            // para que un fallo en la última escritura llegue como error
+                                            .doOnNext(count -> {
+                                                write(generator::writeEndArray);
+                                                write(generator::flush);
+                                            }),
+                                    this::close
+                            ).map(Either::<TenistaError.StorageError, Integer>right)
                     );
                 }).subscribeOn(Schedulers.boundedElastic())
                 .onErrorResume(e -> {
@@ -87,4 +98,35 @@ public class TenistasStorageJson implements TenistasStorage {
                     return Mono.just(Either.left(new TenistaError.StorageError("Error al exportar Tenistas a JSON: " + e.getMessage())));
                 });
     }
+
+    private JsonGenerator openArray(File file) throws IOException {
+        var jsonMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        var generator = jsonMapper.createGenerator(new FileOutputStream(file), JsonEncoding.UTF8);
+        // Por defecto al cerrar se escribe el ] que falte, y un fichero a medias parecería un JSON válido y completo
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        generator.writeStartArray();
+        return generator;
+    }
+
+    // Mono.using descarta los errores de la limpieza, así que al menos los dejamos en el log
+    private void close(JsonGenerator generator) {
+        try {
+            generator.close();
+        } catch (IOException e) {
+            logger.error("Error al cerrar el fichero JSON: {}", e.getMessage());
+        }
+    }
+
+    private void write(JsonWrite action) {
+        try {
+            action.run();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface JsonWrite {
+        void run() throws IOException;
+    }
 }
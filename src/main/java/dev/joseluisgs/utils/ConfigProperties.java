@@ -22,4 +22,12 @@ public class ConfigProperties {
     public String getProperty(String key, String defaultValue) {
         return properties.getProperty(key, defaultValue);
     }
+
+    public int getIntProperty(String key, int defaultValue) {
+        return Integer.parseInt(properties.getProperty(key, String.valueOf(defaultValue)).trim());
+    }
+
+    public long getLongProperty(String key, long defaultValue) {
+        return Long.parseLong(properties.getProperty(key, String.valueOf(defaultValue)).trim());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,148 @@
+package dev.joseluisgs.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncLoadingCacheTest {
+
+    @Test
+    @DisplayName("Debe cargar el elemento la primera vez y después sacarlo de la cache")
+    void debeCargarYGuardarElElemento() {
+        AtomicInteger cargas = new AtomicInteger();
+        AsyncLoadingCache<Long, String> cache = new AsyncLoadingCache<>(new ConcurrentCache<>(10), key -> {
+            cargas.incrementAndGet();
+            return Mono.just("valor" + key);
+        });
+
+        assertAll(
+                "Verificar que solo se carga una vez",
+                () -> assertEquals("valor1", cache.get(1L).block(), "Debe devolver el valor cargado"),
+                () -> assertEquals("valor1", cache.get(1L).block(), "Debe devolver el valor de la cache"),
+                () -> assertEquals(1, cargas.get(), "Solo debería cargarse una vez"),
+                () -> assertEquals(1, cache.stats().loadSuccessCount(), "Debería contar una carga correcta"),
+                () -> assertEquals(1, cache.stats().hitCount(), "Debería contar el acierto de la cache")
+        );
+    }
+
+    @Test
+    @DisplayName("Las cargas fallidas deben contar en las estadísticas")
+    void debeContarLasCargasFallidas() {
+        AsyncLoadingCache<Long, String> cache = new AsyncLoadingCache<>(new ConcurrentCache<>(10),
+                key -> Mono.error(new IllegalStateException("Error de carga")));
+
+        assertThrows(IllegalStateException.class, () -> cache.get(1L).block(), "Debe propagar el error");
+        assertAll(
+                "Verificar las estadísticas de carga",
+                () -> assertEquals(1, cache.stats().loadFailureCount(), "Debería contar una carga fallida"),
+                () -> assertEquals(0, cache.stats().loadSuccessCount(), "No debería contar cargas correctas")
+        );
+    }
+
+    @Test
+    @DisplayName("Las cargas simultáneas de una clave deben compartirse")
+    void debeCompartirLasCargasSimultaneas() {
+        AtomicInteger cargas = new AtomicInteger();
+        AsyncLoadingCache<Long, String> cache = new AsyncLoadingCache<>(new ConcurrentCache<>(10), key -> {
+            cargas.incrementAndGet();
+            return Mono.just("valor" + key).delayElement(Duration.ofMillis(100));
+        });
+
+        var resultados = Mono.zip(cache.get(1L), cache.get(1L), cache.get(1L)).block();
+
+        assertAll(
+                "Verificar que las cargas se comparten",
+                () -> assertNotNull(resultados, "Debe haber resultados"),
+                () -> assertEquals("valor1", resultados.getT3(), "Todos deben recibir el valor"),
+                () -> assertEquals(1, cargas.get(), "Solo debería cargarse una vez")
+        );
+    }
+
+    @Test
+    @DisplayName("Si el cargador no encuentra el elemento no se guarda nada")
+    void noDebeGuardarLosElementosInexistentes() {
+        ConcurrentCache<Long, String> almacen = new ConcurrentCache<>(10);
+        AsyncLoadingCache<Long, String> cache = new AsyncLoadingCache<>(almacen, key -> Mono.empty());
+
+        assertAll(
+                "Verificar que no se guarda nada",
+                () -> assertNull(cache.get(1L).block(), "No debe devolver ningún valor"),
+                () -> assertTrue(almacen.isEmpty(), "La cache debería seguir vacía")
+        );
+    }
+
+    @Test
+    @DisplayName("getAll debe cargar todas las claves que faltan en una sola llamada")
+    void getAllDebeAgruparLasClavesQueFaltan() {
+        List<Set<Long>> llamadas = new ArrayList<>();
+        ConcurrentCache<Long, String> almacen = new ConcurrentCache<>(10);
+        almacen.put(1L, "valor1");
+        AsyncLoadingCache<Long, String> cache = new AsyncLoadingCache<>(almacen,
+                key -> Mono.error(new IllegalStateException("No se debe cargar de una en una")),
+                keys -> {
+                    llamadas.add(Set.copyOf(keys));
+                    // La clave 4 no existe
+                    return Mono.just(keys.stream()
+                            .filter(key -> key != 4L)
+                            .collect(Collectors.toMap(key -> key, key -> "valor" + key)));
+                });
+
+        var resultado = cache.getAll(List.of(1L, 2L, 3L, 4L)).block();
+
+        assertAll(
+                "Verificar la carga agrupada",
+                () -> assertEquals(Map.of(1L, "valor1", 2L, "valor2", 3L, "valor3"), resultado, "Deben devolverse los existentes"),
+                () -> assertEquals(List.of(Set.of(2L, 3L, 4L)), llamadas, "Debe haber una sola llamada con las claves que faltan"),
+                () -> assertEquals("valor2", almacen.get(2L), "Los cargados deben guardarse en la cache")
+        );
+    }
+
+    @Test
+    @DisplayName("Una carga no debe guardar su valor si la clave se ha escrito mientras tanto")
+    void noDebeGuardarUnaCargaAntigua() {
+        ConcurrentCache<Long, String> almacen = new ConcurrentCache<>(10);
+        Sinks.One<String> origen = Sinks.one();
+        AsyncLoadingCache<Long, String> cache = new AsyncLoadingCache<>(almacen, key -> origen.asMono());
+
+        var carga = cache.get(1L).toFuture();
+        cache.put(1L, "nuevo");
+        origen.tryEmitValue("antiguo");
+
+        assertAll(
+                "Verificar que gana la escritura",
+                () -> assertEquals("antiguo", carga.join(), "Quien pidió la carga recibe su resultado"),
+                () -> assertEquals("nuevo", almacen.get(1L), "La cache debe conservar el valor escrito")
+        );
+    }
+
+    @Test
+    @DisplayName("Las claves que no existen deben apuntarse en la cache negativa y no volver a cargarse")
+    void debeUsarLaCacheNegativa() {
+        AtomicInteger cargas = new AtomicInteger();
+        ConcurrentCache<Long, String> inexistentes = new ConcurrentCache<>(10);
+        AsyncLoadingCache<Long, String> cache = new AsyncLoadingCache<Long, String>(new ConcurrentCache<>(10), key -> {
+            cargas.incrementAndGet();
+            return Mono.empty();
+        }).negativeCache(inexistentes, key -> "no existe " + key);
+
+        cache.get(1L).block();
+        cache.get(1L).block();
+
+        assertAll(
+                "Verificar la cache negativa",
+                () -> assertEquals("no existe 1", inexistentes.get(1L), "La clave debería estar en la cache negativa"),
+                () -> assertEquals(1, cargas.get(), "Solo debería cargarse una vez")
+        );
+    }
+}
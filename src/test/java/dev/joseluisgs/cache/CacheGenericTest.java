@@ -4,11 +4,14 @@ import dev.joseluisgs.models.Tenista;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -201,4 +204,172 @@ class CacheGenericTest {
                 () -> assertTrue(cache.isNotEmpty(), "La caché debería estar no-vacía")
         );
     }
+
+    @Test
+    @DisplayName("Debe caducar los elementos pasado su tiempo de vida")
+    void debeCaducarLosElementosPasadoSuTiempoDeVida() {
+        AtomicLong reloj = new AtomicLong();
+        CacheGeneric<Long, Tenista> cache = new CacheGeneric<>(CacheConfig.builder()
+                .maximumSize(2)
+                .expireAfterWrite(Duration.ofSeconds(10))
+                .ticker(reloj::get)
+                .build());
+        Tenista tenista1 = createRandomTenista();
+
+        cache.put(tenista1.getId(), tenista1);
+        reloj.addAndGet(Duration.ofSeconds(5).toNanos());
+        assertEquals(tenista1, cache.get(tenista1.getId()), "El tenista1 no debería haber caducado aún");
+
+        reloj.addAndGet(Duration.ofSeconds(5).toNanos());
+        assertAll(
+                "Verificar que el tenista caduca",
+                () -> assertFalse(cache.containsKey(tenista1.getId()), "La caché no debería contener tenista1"),
+                () -> assertNull(cache.get(tenista1.getId()), "El tenista1 debería haber caducado")
+        );
+    }
+
+    @Test
+    @DisplayName("Debe eliminar los elementos caducados al limpiar")
+    void debeEliminarLosElementosCaducadosAlLimpiar() {
+        AtomicLong reloj = new AtomicLong();
+        CacheGeneric<Long, Tenista> cache = new CacheGeneric<>(CacheConfig.builder()
+                .maximumSize(2)
+                .expireAfterWrite(Duration.ofSeconds(10))
+                .ticker(reloj::get)
+                .build());
+        Tenista tenista1 = createRandomTenista();
+        Tenista tenista2 = createRandomTenista();
+
+        cache.put(tenista1.getId(), tenista1);
+        reloj.addAndGet(Duration.ofSeconds(6).toNanos());
+        cache.put(tenista2.getId(), tenista2);
+        reloj.addAndGet(Duration.ofSeconds(6).toNanos());
+
+        cache.cleanUp();
+
+        assertAll(
+                "Verificar que solo se eliminan los caducados",
+                () -> assertEquals(1, cache.size(), "La caché debería tener un elemento"),
+                () -> assertEquals(tenista2, cache.get(tenista2.getId()), "El tenista2 debería seguir en la caché")
+        );
+    }
+
+    @Test
+    @DisplayName("Con TinyLFU los elementos más usados sobreviven a una importación masiva")
+    void conTinyLfuLosMasUsadosSobrevivenAUnaImportacion() {
+        CacheGeneric<Long, Tenista> cache = new CacheGeneric<>(CacheConfig.builder()
+                .maximumSize(10)
+                .evictionPolicy(EvictionPolicy.TINY_LFU)
+                .build());
+        Tenista tenista1 = createRandomTenista();
+
+        cache.put(tenista1.getId(), tenista1);
+        for (int i = 0; i < 5; i++) {
+            cache.get(tenista1.getId());
+        }
+        // Importación de claves que solo se usan una vez, mientras se sigue consultando el tenista1
+        int fallos = 0;
+        for (long i = 0; i < 1000; i++) {
+            cache.put(i, createRandomTenista());
+            if (i % 20 == 0 && cache.get(tenista1.getId()) == null) {
+                fallos++;
+                cache.put(tenista1.getId(), tenista1);
+            }
+        }
+
+        int totalFallos = fallos;
+        assertAll(
+                "Verificar que el tenista más usado sigue en la caché",
+                () -> assertTrue(cache.size() <= 10, "La caché no debería superar su tamaño máximo"),
+                () -> assertEquals(0, totalFallos, "El tenista1 no debería haber salido de la caché"),
+                () -> assertEquals(tenista1, cache.get(tenista1.getId()), "El tenista1 debería seguir en la caché")
+        );
+    }
+
+    @Test
+    @DisplayName("Debe contar aciertos, fallos, escrituras y expulsiones")
+    void debeContarLasEstadisticas() {
+        CacheGeneric<Long, Tenista> cache = new CacheGeneric<>(2);
+        Tenista tenista1 = createRandomTenista();
+        Tenista tenista2 = createRandomTenista();
+        Tenista tenista3 = createRandomTenista();
+
+        cache.put(tenista1.getId(), tenista1);
+        cache.put(tenista2.getId(), tenista2);
+        cache.get(tenista1.getId());
+        cache.put(tenista3.getId(), tenista3); // Expulsa a tenista2
+        cache.get(tenista2.getId());
+
+        CacheStats stats = cache.stats();
+        assertAll(
+                "Verificar las estadísticas de la caché",
+                () -> assertEquals(1, stats.hitCount(), "Debería haber un acierto"),
+                () -> assertEquals(1, stats.missCount(), "Debería haber un fallo"),
+                () -> assertEquals(3, stats.putCount(), "Debería haber tres escrituras"),
+                () -> assertEquals(1, stats.evictionCount(), "Debería haber una expulsión"),
+                () -> assertEquals(0.5, stats.hitRate(), "La tasa de aciertos debería ser del 50%")
+        );
+    }
+
+    @Test
+    @DisplayName("Debe avisar al oyente con el motivo de cada salida")
+    void debeAvisarAlOyenteDeLasSalidas() {
+        CacheGeneric<Long, Tenista> cache = new CacheGeneric<>(1);
+        List<RemovalCause> causas = new ArrayList<>();
+        cache.addRemovalListener((key, value, cause) -> causas.add(cause));
+        Tenista tenista1 = createRandomTenista();
+        Tenista tenista2 = createRandomTenista();
+
+        cache.put(tenista1.getId(), tenista1);
+        cache.put(tenista1.getId(), tenista1);
+        cache.put(tenista2.getId(), tenista2);
+        cache.remove(tenista2.getId());
+
+        assertEquals(List.of(RemovalCause.REPLACED, RemovalCause.SIZE, RemovalCause.EXPLICIT), causas,
+                "Los motivos deberían coincidir en orden");
+    }
+
+    @Test
+    @DisplayName("Con peso máximo debe expulsar aunque no se llegue al número de elementos")
+    void debeLimitarPorPeso() {
+        CacheGeneric<Long, String> cache = new CacheGeneric<>(CacheConfig.builder()
+                .maximumSize(100)
+                .maximumWeight(10)
+                .weigher((Long key, String value) -> value.length())
+                .build());
+
+        cache.put(1L, "aaaa");
+        cache.put(2L, "bbbb");
+        cache.put(3L, "cccc"); // Expulsa a 1, pesarían 12
+
+        assertAll(
+                "Verificar que no se supera el peso máximo",
+                () -> assertNull(cache.get(1L), "El más antiguo debería haber sido expulsado"),
+                () -> assertEquals(2, cache.size(), "Deberían quedar dos elementos"),
+                () -> assertEquals(8, cache.weightedSize(), "El peso debería ser el de los que quedan")
+        );
+    }
+
+    @Test
+    @DisplayName("Al reducir la cache debe expulsar los menos usados")
+    void debeReducirseExpulsandoLosMenosUsados() {
+        CacheGeneric<Long, Tenista> cache = new CacheGeneric<>(10);
+        List<Tenista> tenistas = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Tenista tenista = createRandomTenista();
+            tenistas.add(tenista);
+            cache.put(tenista.getId(), tenista);
+        }
+        cache.get(tenistas.get(0).getId());
+
+        int expulsados = cache.shrink(0.5);
+
+        assertAll(
+                "Verificar que la caché se ha reducido a la mitad",
+                () -> assertEquals(5, expulsados, "Deberían expulsarse cinco elementos"),
+                () -> assertEquals(5, cache.size(), "Deberían quedar cinco elementos"),
+                () -> assertTrue(cache.containsKey(tenistas.get(0).getId()), "El usado recientemente debería seguir"),
+                () -> assertFalse(cache.containsKey(tenistas.get(1).getId()), "El menos usado debería haber salido")
+        );
+    }
 }
@@ -0,0 +1,132 @@
+package dev.joseluisgs.cache;
+
+import dev.joseluisgs.models.Tenista;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheSnapshotTest {
+    private final Tenista tenistaTest = Tenista.builder()
+            .id(1L)
+            .nombre("Roger Federer")
+            .pais("Suiza")
+            .altura(185)
+            .peso(85)
+            .puntos(9600)
+            .mano(Tenista.Mano.DIESTRO)
+            .fechaNacimiento(LocalDate.of(1981, 8, 8))
+            .createdAt(LocalDateTime.of(2024, 5, 1, 10, 30, 15, 123_456_789))
+            .build();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Debe guardar y recuperar la cache con sus valores")
+    void debeGuardarYRecuperarLosValores() throws IOException {
+        var snapshot = new CacheSnapshot<>(tempDir.resolve("cache.bin"), new TenistaCodec());
+        var origen = new TenistasCacheImpl(10);
+        origen.put(tenistaTest.getId(), tenistaTest);
+
+        int guardados = snapshot.save(origen, true);
+        var destino = new TenistasCacheImpl(10);
+        Integer cargados = snapshot.load(destino, Duration.ofHours(1), id -> Mono.error(new IllegalStateException("No se debe cargar"))).block();
+
+        assertAll(
+                "Verificar que la cache se recupera",
+                () -> assertEquals(1, guardados, "Debería guardarse un tenista"),
+                () -> assertEquals(1, cargados, "Debería cargarse un tenista"),
+                () -> assertEquals(tenistaTest, destino.get(tenistaTest.getId()), "El tenista debe ser igual al guardado")
+        );
+    }
+
+    @Test
+    @DisplayName("Si solo se guardan las claves, los valores se cargan con el cargador")
+    void debeCargarLosValoresDeLasClaves() throws IOException {
+        var snapshot = new CacheSnapshot<>(tempDir.resolve("cache.bin"), new TenistaCodec());
+        var origen = new TenistasCacheImpl(10);
+        origen.put(tenistaTest.getId(), tenistaTest);
+
+        snapshot.save(origen, false);
+        var destino = new TenistasCacheImpl(10);
+        Integer cargados = snapshot.load(destino, Duration.ofHours(1), id -> Mono.just(tenistaTest)).block();
+
+        assertAll(
+                "Verificar que la cache se recupera con el cargador",
+                () -> assertEquals(1, cargados, "Debería cargarse un tenista"),
+                () -> assertEquals(tenistaTest, destino.get(tenistaTest.getId()), "El tenista debe ser el cargado")
+        );
+    }
+
+    @Test
+    @DisplayName("Un fichero que no es una foto se ignora")
+    void debeIgnorarUnFicheroNoValido() throws IOException {
+        Path file = tempDir.resolve("cache.bin");
+        Files.writeString(file, "esto no es una foto de la cache");
+        var snapshot = new CacheSnapshot<>(file, new TenistaCodec());
+        var destino = new TenistasCacheImpl(10);
+
+        Integer cargados = snapshot.load(destino, Duration.ofHours(1), null).block();
+
+        assertAll(
+                "Verificar que la cache sigue vacía",
+                () -> assertEquals(0, cargados, "No debería cargarse nada"),
+                () -> assertTrue(destino.isEmpty(), "La cache debería seguir vacía")
+        );
+    }
+
+    @Test
+    @DisplayName("Guardar la foto no debe contar como lectura de la cache")
+    void guardarNoDebeContarComoLectura() throws IOException {
+        var snapshot = new CacheSnapshot<>(tempDir.resolve("cache.bin"), new TenistaCodec());
+        var origen = new TenistasCacheImpl(10);
+        origen.put(tenistaTest.getId(), tenistaTest);
+
+        snapshot.save(origen, true);
+
+        assertAll(
+                "Verificar que las estadísticas no cambian",
+                () -> assertEquals(0, origen.stats().hitCount(), "No debería contar aciertos"),
+                () -> assertEquals(0, origen.stats().missCount(), "No debería contar fallos")
+        );
+    }
+
+    @Test
+    @DisplayName("Los valores recuperados deben conservar su edad")
+    void debeConservarLaEdadDeLosValores() throws IOException {
+        var snapshot = new CacheSnapshot<>(tempDir.resolve("cache.bin"), new TenistaCodec());
+        AtomicLong reloj = new AtomicLong();
+        var config = CacheConfig.builder()
+                .maximumSize(10)
+                .expireAfterWrite(Duration.ofSeconds(60))
+                .cleanupInterval(null)
+                .ticker(reloj::get)
+                .build();
+        var origen = new TenistasCacheImpl(config, null);
+        origen.put(tenistaTest.getId(), tenistaTest);
+        reloj.addAndGet(Duration.ofSeconds(50).toNanos());
+
+        snapshot.save(origen, true);
+        var destino = new TenistasCacheImpl(config, null);
+        snapshot.load(destino, Duration.ofHours(1), null).block();
+        boolean recuperado = destino.containsKey(tenistaTest.getId());
+        reloj.addAndGet(Duration.ofSeconds(15).toNanos());
+
+        assertAll(
+                "Verificar que caduca a su hora",
+                () -> assertTrue(recuperado, "El tenista debería recuperarse"),
+                () -> assertNull(destino.get(tenistaTest.getId()), "Con 65 segundos el tenista debería haber caducado")
+        );
+    }
+}
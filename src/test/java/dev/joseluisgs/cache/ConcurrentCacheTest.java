@@ -0,0 +1,238 @@
+package dev.joseluisgs.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentCacheTest {
+
+    @Test
+    @DisplayName("Debe guardar y devolver elementos por su clave")
+    void debeGuardarYDevolverElementos() {
+        ConcurrentCache<Long, String> cache = new ConcurrentCache<>(10);
+
+        cache.put(1L, "uno");
+        cache.put(2L, "dos");
+
+        assertAll(
+                "Verificar que los elementos se guardan y se recuperan",
+                () -> assertEquals("uno", cache.get(1L), "Debe devolver el valor de la clave 1"),
+                () -> assertEquals("dos", cache.get(2L), "Debe devolver el valor de la clave 2"),
+                () -> assertNull(cache.get(3L), "Debe devolver null si no existe la clave"),
+                () -> assertEquals(2, cache.size(), "La caché debería tener dos elementos"),
+                () -> assertEquals(Set.of(1L, 2L), cache.keys(), "Las claves deben coincidir"),
+                () -> assertTrue(cache.containsValue("dos"), "Debe contener el valor dos")
+        );
+    }
+
+    @Test
+    @DisplayName("Nunca debe superar el tamaño máximo")
+    void nuncaDebeSuperarElTamanoMaximo() {
+        ConcurrentCache<Long, String> cache = new ConcurrentCache<>(5);
+
+        for (long i = 0; i < 100; i++) {
+            cache.put(i, "valor" + i);
+        }
+
+        assertTrue(cache.size() <= 5, "La caché no debería superar su tamaño máximo");
+    }
+
+    @Test
+    @DisplayName("Debe eliminar y limpiar elementos")
+    void debeEliminarYLimpiar() {
+        ConcurrentCache<Long, String> cache = new ConcurrentCache<>(10);
+        cache.put(1L, "uno");
+        cache.put(2L, "dos");
+
+        cache.remove(1L);
+        assertFalse(cache.containsKey(1L), "No debería contener la clave eliminada");
+
+        cache.clear();
+        assertTrue(cache.isEmpty(), "La caché debería estar vacía");
+    }
+
+    @Test
+    @DisplayName("Debe soportar accesos concurrentes sin corromperse")
+    void debeSoportarAccesosConcurrentes() throws Exception {
+        int cacheSize = 64;
+        int threads = 8;
+        ConcurrentCache<Long, Long> cache = new ConcurrentCache<>(cacheSize);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (long i = 0; i < 10_000; i++) {
+                    long key = i % 128;
+                    cache.put(key, key);
+                    Long value = cache.get(key);
+                    if (value != null && value != key) {
+                        throw new IllegalStateException("Valor corrupto para la clave " + key);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertAll(
+                "Verificar que la caché sigue siendo consistente",
+                () -> assertTrue(cache.size() <= cacheSize, "No debe superar el tamaño máximo"),
+                () -> assertEquals(cache.size(), cache.keys().size(), "El tamaño debe coincidir con las claves")
+        );
+    }
+
+    @Test
+    @DisplayName("Debe refrescar en segundo plano sirviendo el valor antiguo mientras")
+    void debeRefrescarEnSegundoPlano() throws InterruptedException {
+        AtomicLong reloj = new AtomicLong();
+        ConcurrentCache<Long, String> cache = new ConcurrentCache<>(CacheConfig.builder()
+                .maximumSize(10)
+                .refreshAfterWrite(Duration.ofSeconds(30))
+                .ticker(reloj::get)
+                .build(), key -> Mono.just("nuevo"));
+
+        cache.put(1L, "antiguo");
+        reloj.addAndGet(Duration.ofSeconds(31).toNanos());
+
+        assertEquals("antiguo", cache.get(1L), "Debe devolver el valor antiguo mientras se refresca");
+
+        // Esperamos a que termine la recarga asíncrona
+        for (int i = 0; i < 50 && !"nuevo".equals(cache.get(1L)); i++) {
+            Thread.sleep(20);
+        }
+        assertEquals("nuevo", cache.get(1L), "Debe devolver el valor refrescado");
+    }
+
+    @Test
+    @DisplayName("Un refresco en curso no debe pisar ni resucitar lo escrito mientras tanto")
+    void refrescoEnCursoNoDebePisarEscrituras() {
+        AtomicLong reloj = new AtomicLong();
+        Map<Long, Sinks.One<String>> recargas = new HashMap<>();
+        ConcurrentCache<Long, String> cache = new ConcurrentCache<>(CacheConfig.builder()
+                .maximumSize(10)
+                .refreshAfterWrite(Duration.ofSeconds(30))
+                .refreshScheduler(Schedulers.immediate())
+                .ticker(reloj::get)
+                .build(), key -> recargas.computeIfAbsent(key, k -> Sinks.one()).asMono());
+        cache.put(1L, "antiguo");
+        cache.put(2L, "antiguo");
+        reloj.addAndGet(Duration.ofSeconds(31).toNanos());
+
+        // Lanzamos los refrescos y, antes de que terminen, borramos uno y actualizamos el otro
+        cache.get(1L);
+        cache.get(2L);
+        cache.remove(1L);
+        cache.put(2L, "actualizado");
+        recargas.get(1L).tryEmitValue("recargado");
+        recargas.get(2L).tryEmitValue("recargado");
+
+        assertAll(
+                "Verificar que los refrescos antiguos se descartan",
+                () -> assertNull(cache.get(1L), "El borrado no debe resucitar"),
+                () -> assertEquals("actualizado", cache.get(2L), "La actualización no debe pisarse")
+        );
+    }
+
+    @Test
+    @DisplayName("Debe refrescar antes de caducar las entradas más leídas")
+    void debeRefrescarAntesDeCaducarLasMasLeidas() {
+        AtomicLong reloj = new AtomicLong();
+        ConcurrentCache<Long, String> cache = new ConcurrentCache<>(CacheConfig.builder()
+                .maximumSize(10)
+                .expireAfterWrite(Duration.ofSeconds(60))
+                .refreshAheadThreshold(2)
+                .refreshAheadWindow(Duration.ofSeconds(10))
+                // Recargamos en el mismo hilo para no tener que esperar
+                .refreshScheduler(Schedulers.immediate())
+                .ticker(reloj::get)
+                .build(), key -> Mono.just("nuevo"));
+        cache.put(1L, "popular");
+        cache.put(2L, "normal");
+        cache.get(1L);
+        cache.get(1L);
+        cache.get(2L);
+
+        reloj.addAndGet(Duration.ofSeconds(55).toNanos());
+        cache.cleanUp();
+        reloj.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertAll(
+                "Verificar que solo se ha refrescado la entrada popular",
+                () -> assertEquals("nuevo", cache.get(1L), "La entrada popular no debería haber caducado"),
+                () -> assertNull(cache.get(2L), "La entrada poco leída debería haber caducado")
+        );
+        CacheStats stats = cache.stats();
+        assertAll(
+                "Verificar las estadísticas del refresco anticipado",
+                () -> assertEquals(1, stats.refreshAheadCount(), "Debería haber un refresco anticipado"),
+                () -> assertEquals(1, stats.refreshAheadHitCount(), "Debería haber un acierto gracias al refresco")
+        );
+    }
+
+    @Test
+    @DisplayName("Sin limpiador las entradas caducadas deben quitarse al leerlas")
+    void sinLimpiadorDebeCaducarAlLeer() {
+        AtomicLong reloj = new AtomicLong();
+        ConcurrentCache<Long, String> cache = new ConcurrentCache<>(CacheConfig.builder()
+                .maximumSize(10)
+                .expireAfterWrite(Duration.ofSeconds(60))
+                .cleanupInterval(Duration.ZERO)
+                .ticker(reloj::get)
+                .build());
+        cache.put(1L, "uno");
+
+        reloj.addAndGet(Duration.ofSeconds(61).toNanos());
+
+        assertAll(
+                "Verificar que caduca sin limpiador",
+                () -> assertNull(cache.get(1L), "La entrada debería haber caducado"),
+                () -> assertEquals(0, cache.size(), "La entrada caducada debería haberse quitado")
+        );
+        cache.close();
+    }
+
+    @Test
+    @DisplayName("Debe leer, escribir y borrar por lotes")
+    void debeOperarPorLotes() {
+        ConcurrentCache<Long, String> cache = new ConcurrentCache<>(100);
+
+        cache.putAll(Map.of(1L, "uno", 2L, "dos", 3L, "tres"));
+        Map<Long, String> encontrados = cache.getAll(List.of(1L, 2L, 4L));
+        cache.invalidateAll(List.of(1L, 3L));
+        String calculado = cache.computeIfAbsent(4L, key -> "cuatro");
+        String existente = cache.computeIfAbsent(2L, key -> "otro");
+
+        assertAll(
+                "Verificar las operaciones por lotes",
+                () -> assertEquals(Map.of(1L, "uno", 2L, "dos"), encontrados, "Solo deben devolverse los que están"),
+                () -> assertEquals(Set.of(2L, 4L), cache.keys(), "Deben quedar la no borrada y la calculada"),
+                () -> assertEquals("cuatro", calculado, "Debe calcular la que no está"),
+                () -> assertEquals("dos", existente, "No debe calcular la que ya está")
+        );
+    }
+}
@@ -0,0 +1,137 @@
+package dev.joseluisgs.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongCacheTest {
+
+    @Test
+    @DisplayName("Debe guardar y devolver elementos por su clave primitiva")
+    void debeGuardarYDevolverElementos() {
+        LongCache<String> cache = new LongCache<>(10);
+
+        cache.put(1L, "uno");
+        cache.put(2L, "dos");
+        cache.put(1L, "otro uno");
+
+        assertAll(
+                "Verificar que los elementos se guardan y se recuperan",
+                () -> assertEquals("otro uno", cache.get(1L), "Debe devolver el último valor de la clave 1"),
+                () -> assertEquals("dos", cache.get(Long.valueOf(2L)), "Debe devolver el valor de la clave 2"),
+                () -> assertNull(cache.get(3L), "Debe devolver null si no existe la clave"),
+                () -> assertEquals(2, cache.size(), "La caché debería tener dos elementos"),
+                () -> assertEquals(Set.of(1L, 2L), cache.keys(), "Las claves deben coincidir")
+        );
+    }
+
+    @Test
+    @DisplayName("Con CLOCK los elementos leídos sobreviven a una importación")
+    void losElementosLeidosSobreviven() {
+        LongCache<String> cache = new LongCache<>(10);
+        cache.put(-1L, "muy usado");
+
+        int fallos = 0;
+        for (long i = 0; i < 1000; i++) {
+            cache.put(i, "importado" + i);
+            if (cache.get(-1L) == null) {
+                fallos++;
+                cache.put(-1L, "muy usado");
+            }
+        }
+
+        int totalFallos = fallos;
+        assertAll(
+                "Verificar que el más usado sigue en la caché",
+                () -> assertEquals(10, cache.size(), "La caché debería estar llena"),
+                () -> assertEquals(0, totalFallos, "El elemento leído no debería haber salido de la caché")
+        );
+    }
+
+    @Test
+    @DisplayName("Debe coincidir con un mapa tras muchas altas, bajas y expulsiones")
+    void debeSerConsistenteTrasMuchasOperaciones() {
+        LongCache<String> cache = new LongCache<>(100);
+        Map<Long, String> esperado = new HashMap<>();
+        // Lo que expulse la caché también sale del mapa de referencia
+        cache.addRemovalListener((key, value, cause) -> {
+            if (cause != RemovalCause.REPLACED) {
+                esperado.remove(key);
+            }
+        });
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(300) - 150;
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    String value = "valor" + i;
+                    cache.put(key, value);
+                    esperado.put(key, value);
+                }
+                case 1 -> cache.remove(key);
+                default -> assertEquals(esperado.get(key), cache.get(key), "El valor de la clave " + key + " no coincide");
+            }
+        }
+
+        assertAll(
+                "Verificar que la tabla sigue siendo consistente",
+                () -> assertTrue(cache.size() <= 100, "No debe superar el tamaño máximo"),
+                () -> assertEquals(esperado.keySet(), cache.keys(), "Las claves deben coincidir")
+        );
+    }
+
+    @Test
+    @DisplayName("Debe caducar los elementos pasado su tiempo de vida")
+    void debeCaducarLosElementos() {
+        AtomicLong reloj = new AtomicLong();
+        LongCache<String> cache = new LongCache<>(CacheConfig.builder()
+                .maximumSize(10)
+                .expireAfterWrite(Duration.ofSeconds(60))
+                .ticker(reloj::get)
+                .build());
+        cache.put(1L, "uno");
+        cache.put(2L, "dos");
+
+        reloj.addAndGet(Duration.ofSeconds(61).toNanos());
+        cache.put(3L, "tres");
+
+        assertNull(cache.get(1L), "El elemento caducado no se debe devolver");
+        cache.cleanUp();
+        assertAll(
+                "Verificar que solo queda el elemento vigente",
+                () -> assertEquals(1, cache.size(), "Solo debería quedar un elemento"),
+                () -> assertEquals("tres", cache.get(3L), "El elemento vigente debe seguir en la caché"),
+                () -> assertEquals(2, cache.stats().evictionCount(), "Los caducados cuentan como expulsiones")
+        );
+    }
+
+    @Test
+    @DisplayName("Debe escribir y borrar por lotes respetando el tamaño máximo")
+    void debeEscribirYBorrarPorLotes() {
+        LongCache<String> cache = new LongCache<>(4);
+        Map<Long, String> lote = new HashMap<>();
+        for (long i = 0; i < 10; i++) {
+            lote.put(i, "valor" + i);
+        }
+
+        cache.putAll(lote);
+        int despuesDeEscribir = cache.size();
+        cache.invalidateAll(cache.keys());
+
+        assertAll(
+                "Verificar las operaciones por lotes",
+                () -> assertEquals(4, despuesDeEscribir, "No debe superar el tamaño máximo"),
+                () -> assertTrue(cache.isEmpty(), "Debe quedar vacía tras borrar todas las claves"),
+                () -> assertEquals(6, cache.stats().evictionCount(), "Debería haber seis expulsiones")
+        );
+    }
+}
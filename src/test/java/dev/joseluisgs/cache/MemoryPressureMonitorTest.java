@@ -0,0 +1,31 @@
+package dev.joseluisgs.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.management.Notification;
+import java.lang.management.MemoryNotificationInfo;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoryPressureMonitorTest {
+
+    @Test
+    @DisplayName("Solo debe reaccionar al aviso de memoria tras la recolección")
+    void debeReaccionarAlAvisoDeMemoria() {
+        AtomicInteger avisos = new AtomicInteger();
+        try (var monitor = new MemoryPressureMonitor(0.9, avisos::incrementAndGet)) {
+            monitor.handleNotification(new Notification(MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED, "test", 1), null);
+            monitor.handleNotification(new Notification(MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED, "test", 2), null);
+        }
+
+        assertEquals(1, avisos.get(), "Debería haber reaccionado una sola vez");
+    }
+
+    @Test
+    @DisplayName("Un umbral fuera de rango no es válido")
+    void debeRechazarUnUmbralNoValido() {
+        assertThrows(IllegalArgumentException.class, () -> new MemoryPressureMonitor(1.5, () -> { }));
+    }
+}
@@ -0,0 +1,156 @@
+package dev.joseluisgs.cache;
+
+import dev.joseluisgs.models.Tenista;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapCacheTest {
+
+    private Tenista createTenista(long id) {
+        return Tenista.builder()
+                .id(id)
+                .nombre("Tenista " + id)
+                .pais("España")
+                .altura(185)
+                .peso(80)
+                .puntos((int) id * 10)
+                .mano(Tenista.Mano.DIESTRO)
+                .fechaNacimiento(LocalDate.of(1990, 1, 1))
+                .build();
+    }
+
+    @Test
+    @DisplayName("Debe guardar los tenistas serializados y devolverlos iguales")
+    void debeGuardarYDevolverLosTenistas() {
+        OffHeapCache<Tenista> cache = new OffHeapCache<>(64 * 1024, 4096, new TenistaCodec());
+        Tenista tenista1 = createTenista(1L);
+        Tenista tenista2 = createTenista(2L);
+
+        cache.put(1L, tenista1);
+        cache.put(2L, tenista2);
+        cache.put(1L, tenista1.puntos(5000));
+
+        assertAll(
+                "Verificar que los tenistas se recuperan",
+                () -> assertEquals(tenista1, cache.get(1L), "Debe devolver la última versión del tenista 1"),
+                () -> assertEquals(tenista2, cache.get(2L), "Debe devolver el tenista 2"),
+                () -> assertNull(cache.get(3L), "Debe devolver null si no existe"),
+                () -> assertEquals(2, cache.size(), "La caché debería tener dos tenistas")
+        );
+    }
+
+    @Test
+    @DisplayName("Cuando se llena debe expulsar el bloque más antiguo")
+    void debeExpulsarElBloqueMasAntiguo() {
+        // Dos bloques pequeños: en cada uno caben pocos tenistas
+        OffHeapCache<Tenista> cache = new OffHeapCache<>(1024, 512, new TenistaCodec());
+
+        for (long i = 0; i < 100; i++) {
+            cache.put(i, createTenista(i));
+        }
+
+        assertAll(
+                "Verificar que solo quedan los últimos",
+                () -> assertTrue(cache.size() < 100, "No caben todos los tenistas"),
+                () -> assertNull(cache.get(0L), "El primero debería haber sido expulsado"),
+                () -> assertEquals(createTenista(99L), cache.get(99L), "El último debería seguir en la caché"),
+                () -> assertEquals(100 - cache.size(), cache.stats().evictionCount(), "Cada tenista que falta es una expulsión")
+        );
+    }
+
+    @Test
+    @DisplayName("Lo que expulsa el primer nivel debe seguir disponible en el segundo")
+    void elSegundoNivelDebeGuardarLoExpulsado() {
+        TieredCache<Tenista> cache = new TieredCache<>(new ConcurrentCache<>(5),
+                new OffHeapCache<>(1024 * 1024, 4096, new TenistaCodec()));
+
+        for (long i = 0; i < 100; i++) {
+            cache.put(i, createTenista(i));
+        }
+
+        assertAll(
+                "Verificar que no se ha perdido ningún tenista",
+                () -> assertEquals(100, cache.size(), "Deberían estar todos entre los dos niveles"),
+                () -> assertEquals(createTenista(0L), cache.get(0L), "El primero debería recuperarse del segundo nivel"),
+                () -> assertEquals(1, cache.stats().hitCount(), "Debería contar un acierto")
+        );
+    }
+
+    @Test
+    @DisplayName("Las estadísticas de dos niveles deben incluir las cargas del primero")
+    void lasEstadisticasDebenIncluirLasCargasDelPrimerNivel() {
+        AtomicLong reloj = new AtomicLong();
+        ConcurrentCache<Long, Tenista> l1 = new ConcurrentCache<>(CacheConfig.builder()
+                .maximumSize(5)
+                .refreshAfterWrite(Duration.ofSeconds(30))
+                .refreshScheduler(Schedulers.immediate())
+                .ticker(reloj::get)
+                .build(), key -> Mono.just(createTenista(key)));
+        TieredCache<Tenista> cache = new TieredCache<>(l1, new OffHeapCache<>(1024 * 1024, 4096, new TenistaCodec()));
+        cache.put(1L, createTenista(1L));
+
+        reloj.addAndGet(Duration.ofSeconds(31).toNanos());
+        cache.get(1L);
+
+        assertEquals(1, cache.stats().loadSuccessCount(), "Debería contar la recarga del primer nivel");
+    }
+
+    @Test
+    @DisplayName("Al bajar y subir de nivel los tenistas deben conservar su edad")
+    void losNivelesDebenConservarLaEdad() {
+        AtomicLong reloj = new AtomicLong();
+        CacheConfig config = CacheConfig.builder()
+                .maximumSize(1)
+                .concurrencyLevel(1)
+                .expireAfterWrite(Duration.ofSeconds(30))
+                .cleanupInterval(null)
+                .ticker(reloj::get)
+                .build();
+        TieredCache<Tenista> cache = new TieredCache<>(new ConcurrentCache<>(config),
+                new OffHeapCache<>(1024 * 1024, 4096, new TenistaCodec(), config));
+        cache.put(1L, createTenista(1L));
+        reloj.addAndGet(Duration.ofSeconds(20).toNanos());
+
+        // El 2 hace bajar al 1, y al leer el 1 sube otra vez y baja el 2
+        cache.put(2L, createTenista(2L));
+        Tenista subido = cache.get(1L);
+        reloj.addAndGet(Duration.ofSeconds(15).toNanos());
+
+        assertAll(
+                "Verificar que la caducidad cuenta desde la primera escritura",
+                () -> assertEquals(createTenista(1L), subido, "El 1 debería recuperarse del segundo nivel"),
+                () -> assertNull(cache.get(1L), "El 1 tiene 35 segundos y debería haber caducado"),
+                () -> assertEquals(createTenista(2L), cache.get(2L), "El 2 tiene 15 segundos y debería seguir")
+        );
+    }
+
+    @Test
+    @DisplayName("Fuera del heap los tenistas caducados no deben devolverse")
+    void noDebeDevolverLosCaducados() {
+        AtomicLong reloj = new AtomicLong();
+        OffHeapCache<Tenista> cache = new OffHeapCache<>(64 * 1024, 4096, new TenistaCodec(), CacheConfig.builder()
+                .expireAfterWrite(Duration.ofSeconds(30))
+                .ticker(reloj::get)
+                .build());
+        cache.put(1L, createTenista(1L));
+        cache.put(2L, createTenista(2L), Duration.ofSeconds(20).toNanos());
+
+        reloj.addAndGet(Duration.ofSeconds(15).toNanos());
+
+        assertAll(
+                "Verificar la caducidad",
+                () -> assertEquals(createTenista(1L), cache.get(1L), "El 1 tiene 15 segundos y debería seguir"),
+                () -> assertFalse(cache.containsKey(2L), "El 2 se guardó con 20 segundos y ya tiene 35"),
+                () -> assertNull(cache.get(2L), "El 2 no debería devolverse"),
+                () -> assertEquals(1, cache.size(), "El 2 debería quitarse al leerlo")
+        );
+    }
+}
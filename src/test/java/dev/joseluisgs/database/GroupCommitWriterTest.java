@@ -0,0 +1,97 @@
+package dev.joseluisgs.database;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GroupCommitWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private long insertTenista(TenistasDao dao, String nombre) {
+        var now = System.currentTimeMillis();
+        return dao.insert(nombre, "Suiza", 185, 85, 9600, "DIESTRO", LocalDate.of(1981, 8, 8).toEpochDay(), now, now);
+    }
+
+    @Test
+    @DisplayName("Todas las escrituras concurrentes deben confirmarse")
+    void todasLasEscriturasDebenConfirmarse() {
+        try (var db = new JdbiManager<>(tempDir.resolve("tenistas.db").toString(), TenistasDao.class, 4);
+             var writer = new GroupCommitWriter<>(db, 16, 8)) {
+            db.use(TenistasDao::createTable);
+
+            var ids = Flux.range(0, 100)
+                    .flatMap(i -> writer.submit(dao -> insertTenista(dao, "Tenista " + i)).subscribeOn(Schedulers.parallel()))
+                    .collectList()
+                    .block();
+
+            assertAll(
+                    "Verificar las escrituras",
+                    () -> assertEquals(100, ids.size(), "Deberían completarse todas las escrituras"),
+                    () -> assertEquals(100, ids.stream().distinct().count(), "Cada escritura debería tener su ID"),
+                    () -> assertEquals(100, db.with(TenistasDao::selectAll).size(), "Deberían guardarse todos los tenistas"),
+                    () -> assertEquals(0, writer.pending(), "No debería quedar nada en la cola")
+            );
+        }
+    }
+
+    @Test
+    @DisplayName("Si una escritura falla, el resto del lote debe confirmarse")
+    void unaEscrituraFallidaNoDebeTumbarElLote() {
+        try (var db = new JdbiManager<>(tempDir.resolve("tenistas.db").toString(), TenistasDao.class, 4);
+             var writer = new GroupCommitWriter<>(db)) {
+            db.use(TenistasDao::createTable);
+
+            Mono<Long> ok = writer.submit(dao -> insertTenista(dao, "Roger Federer"));
+            Mono<Long> error = writer.submit(dao -> {
+                throw new IllegalStateException("Error de escritura");
+            });
+
+            var result = Mono.zip(ok, error.onErrorResume(e -> Mono.just(-1L))).block();
+
+            assertAll(
+                    "Verificar que solo falla la escritura errónea",
+                    () -> assertTrue(result.getT1() > 0, "La escritura correcta debería tener ID"),
+                    () -> assertEquals(-1L, result.getT2(), "La escritura fallida debería dar error"),
+                    () -> assertEquals(1, db.with(TenistasDao::selectAll).size(), "Debería guardarse solo el tenista correcto")
+            );
+        }
+    }
+
+    @Test
+    @DisplayName("El resultado no debe entregarse en el hilo del escritor")
+    void elResultadoNoDebeEntregarseEnElHiloDelEscritor() {
+        try (var db = new JdbiManager<>(tempDir.resolve("tenistas.db").toString(), TenistasDao.class, 4);
+             var writer = new GroupCommitWriter<>(db)) {
+            db.use(TenistasDao::createTable);
+
+            String hilo = writer.submit(dao -> insertTenista(dao, "Roger Federer"))
+                    .map(id -> Thread.currentThread().getName())
+                    .block();
+
+            assertNotEquals("group-commit-writer", hilo, "El escritor no debería ejecutar lo que viene después");
+        }
+    }
+
+    @Test
+    @DisplayName("Tras cerrar el escritor las escrituras deben fallar")
+    void trasCerrarLasEscriturasDebenFallar() {
+        try (var db = new JdbiManager<>(tempDir.resolve("tenistas.db").toString(), TenistasDao.class, 4)) {
+            db.use(TenistasDao::createTable);
+            var writer = new GroupCommitWriter<>(db);
+            writer.close();
+
+            assertThrows(IllegalStateException.class, () -> writer.submit(dao -> insertTenista(dao, "Roger Federer")).block(),
+                    "Debería avisar de que el escritor está cerrado");
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package dev.joseluisgs.database;
+
+import dev.joseluisgs.models.Tenista;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbiManagerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private long insertTenista(TenistasDao dao) {
+        var now = System.currentTimeMillis();
+        return dao.insert("Roger Federer", "Suiza", 185, 85, 9600, "DIESTRO", LocalDate.of(1981, 8, 8).toEpochDay(), now, now);
+    }
+
+    @Test
+    @DisplayName("En memoria los datos deben seguir ahí entre operaciones")
+    void enMemoriaDebeConservarLosDatos() {
+        try (var db = new JdbiManager<>(":memory:", TenistasDao.class, 8)) {
+            db.use(TenistasDao::createTable);
+            long id = db.with(this::insertTenista);
+
+            assertAll(
+                    "Verificar que se reutiliza la misma conexión",
+                    () -> assertTrue(db.with(dao -> dao.selectById(id)).isPresent(), "El tenista debería existir"),
+                    () -> assertEquals(1, db.getPoolStats().total(), "En memoria solo debe haber una conexión")
+            );
+        }
+    }
+
+    @Test
+    @DisplayName("Las conexiones deben volver al pool tras cada operación")
+    void lasConexionesDebenVolverAlPool() {
+        try (var db = new JdbiManager<>(tempDir.resolve("tenistas.db").toString(), TenistasDao.class, 2)) {
+            db.use(TenistasDao::createTable);
+            db.useTransaction(dao -> {
+                insertTenista(dao);
+                insertTenista(dao);
+            });
+
+            PoolStats stats = db.getPoolStats();
+            assertAll(
+                    "Verificar el estado del pool",
+                    () -> assertEquals(2, db.with(TenistasDao::selectAll).size(), "Deberían guardarse dos tenistas"),
+                    () -> assertEquals(0, stats.active(), "No debería quedar ninguna conexión en uso"),
+                    () -> assertTrue(stats.total() <= 2, "No debe superar el tamaño del pool"),
+                    () -> assertEquals(0, stats.waiting(), "Nadie debería estar esperando una conexión")
+            );
+        }
+    }
+
+    @Test
+    @DisplayName("Las filas deben mapearse directamente a Tenista")
+    void lasFilasDebenMapearseATenista() {
+        try (var db = new JdbiManager<>(":memory:", TenistasDao.class)) {
+            db.use(TenistasDao::createTable);
+            long id = db.with(this::insertTenista);
+
+            var tenista = db.with(TenistasDao::selectAll).getFirst();
+            assertAll(
+                    "Verificar el mapeo de la fila",
+                    () -> assertEquals(id, tenista.getId(), "El ID debería coincidir"),
+                    () -> assertEquals("Roger Federer", tenista.getNombre(), "El nombre debería coincidir"),
+                    () -> assertEquals(9600, tenista.getPuntos(), "Los puntos deberían coincidir"),
+                    () -> assertEquals(Tenista.Mano.DIESTRO, tenista.getMano(), "La mano debería coincidir"),
+                    () -> assertEquals(LocalDate.of(1981, 8, 8), tenista.getFechaNacimiento(), "La fecha de nacimiento debería coincidir"),
+                    () -> assertFalse(tenista.isDeleted(), "No debería estar borrado")
+            );
+        }
+    }
+
+    @Test
+    @DisplayName("Con el perfil de rendimiento la base de datos debe usar WAL")
+    void conElPerfilDeRendimientoDebeUsarWal() {
+        Path file = tempDir.resolve("tenistas.db");
+        try (var db = new JdbiManager<>(file.toString(), TenistasDao.class, 2, SqliteProfile.PERFORMANCE)) {
+            db.use(TenistasDao::createTable);
+            db.with(this::insertTenista);
+
+            assertTrue(Files.exists(tempDir.resolve("tenistas.db-wal")), "Debería existir el fichero de WAL");
+        }
+    }
+}
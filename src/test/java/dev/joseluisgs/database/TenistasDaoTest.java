@@ -0,0 +1,148 @@
+package dev.joseluisgs.database;
+
+import dev.joseluisgs.mapper.TenistaMapper;
+import dev.joseluisgs.models.Tenista;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TenistasDaoTest {
+
+    @TempDir
+    Path tempDir;
+
+    // Base de datos con el esquema de la versión 1, fechas como texto ISO y sin user_version
+    private void createV1Database(Path file) throws SQLException {
+        try (var connection = DriverManager.getConnection("jdbc:sqlite:" + file);
+             var statement = connection.createStatement()) {
+            statement.execute("""
+                    CREATE TABLE TenistaEntity (
+                            id INTEGER PRIMARY KEY,
+                            nombre TEXT NOT NULL,
+                            pais TEXT NOT NULL,
+                            altura INTEGER NOT NULL,
+                            peso INTEGER NOT NULL,
+                            puntos INTEGER NOT NULL,
+                            mano TEXT NOT NULL,
+                            fecha_nacimiento TEXT NOT NULL,
+                            created_at TEXT NOT NULL,
+                            updated_at TEXT NOT NULL,
+                            is_deleted INTEGER NOT NULL DEFAULT 0
+                        )
+                    """);
+            statement.execute("CREATE INDEX idx_tenista_deleted_puntos ON TenistaEntity (is_deleted, puntos)");
+            statement.execute("""
+                    INSERT INTO TenistaEntity (id, nombre, pais, altura, peso, puntos, mano, fecha_nacimiento, created_at, updated_at)
+                    VALUES (7, 'Rafael Nadal', 'España', 185, 85, 5000, 'ZURDO', '1986-06-03', '2024-03-05T10:15:30.123', '2024-03-05T10:15')
+                    """);
+        }
+    }
+
+    @Test
+    @DisplayName("Una base de datos nueva debe crearse con la versión actual del esquema")
+    void unaBaseDeDatosNuevaDebeTenerLaVersionActual() {
+        try (var db = new JdbiManager<>(":memory:", TenistasDao.class)) {
+            db.use(TenistasDao::createSchema);
+
+            assertEquals(TenistasDao.SCHEMA_VERSION, db.with(TenistasDao::schemaVersion), "La versión del esquema debería ser la actual");
+        }
+    }
+
+    @Test
+    @DisplayName("Las fechas en texto de la versión 1 deben migrarse a INTEGER")
+    void lasFechasDeLaVersion1DebenMigrarse() throws SQLException {
+        Path file = tempDir.resolve("tenistas.db");
+        createV1Database(file);
+
+        try (var db = new JdbiManager<>(file.toString(), TenistasDao.class)) {
+            db.use(TenistasDao::createSchema);
+
+            Tenista tenista = db.with(dao -> dao.selectById(7L)).orElseThrow();
+            assertAll(
+                    "Verificar la migración del esquema",
+                    () -> assertEquals(TenistasDao.SCHEMA_VERSION, db.with(TenistasDao::schemaVersion), "La versión del esquema debería ser la actual"),
+                    () -> assertEquals("Rafael Nadal", tenista.getNombre(), "Los datos deberían conservarse"),
+                    () -> assertEquals(LocalDate.of(1986, 6, 3), tenista.getFechaNacimiento(), "La fecha de nacimiento debería conservarse"),
+                    () -> assertEquals(LocalDateTime.of(2024, 3, 5, 10, 15, 30, 123_000_000), tenista.getCreatedAt(), "La fecha de creación debería conservarse"),
+                    () -> assertEquals(LocalDateTime.of(2024, 3, 5, 10, 15), tenista.getUpdatedAt(), "La fecha de actualización debería conservarse"),
+                    () -> assertEquals(1, db.with(dao -> dao.selectTopByPuntos(10)).size(), "Los índices deberían recrearse sobre la tabla nueva")
+            );
+        }
+    }
+
+    @Test
+    @DisplayName("Al cambiar la tabla en sombra deben quedar solo los datos nuevos y los índices")
+    void alCambiarLaTablaEnSombraDebenQuedarLosDatosNuevos() {
+        try (var db = new JdbiManager<>(":memory:", TenistasDao.class)) {
+            db.use(TenistasDao::createSchema);
+            var now = System.currentTimeMillis();
+            db.with(dao -> dao.insert("Roger Federer", "Suiza", 185, 85, 9600, "DIESTRO", LocalDate.of(1981, 8, 8).toEpochDay(), now, now));
+            var nadal = new TenistaEntity(7L, "Rafael Nadal", "España", 185, 85, 5000, "ZURDO",
+                    LocalDate.of(1986, 6, 3).toEpochDay(), now, now, false);
+
+            db.useTransaction(dao -> {
+                dao.createShadow();
+                dao.insertShadowBatch(List.of(nadal), now, 100);
+            });
+            // Hasta el cambio se sigue leyendo la tabla anterior
+            assertEquals("Roger Federer", db.with(TenistasDao::selectAll).getFirst().getNombre(), "Debería leerse la tabla anterior");
+            db.use(TenistasDao::swapShadow);
+
+            var tenistas = db.with(TenistasDao::selectAll);
+            assertAll(
+                    "Verificar el cambio de tabla",
+                    () -> assertEquals(1, tenistas.size(), "Solo deberían quedar los datos nuevos"),
+                    () -> assertEquals(7L, tenistas.getFirst().getId(), "Deberían conservarse los ids"),
+                    () -> assertEquals(1, db.with(dao -> dao.selectByPais("España")).size(), "Las consultas deberían seguir funcionando")
+            );
+        }
+    }
+
+    @Test
+    @DisplayName("La recarga en sombra debe contar solo los cambios y conservar las fechas de lo que no cambia")
+    void laRecargaEnSombraDebeContarLosCambios() {
+        try (var db = new JdbiManager<>(":memory:", TenistasDao.class)) {
+            db.use(TenistasDao::createSchema);
+            var antes = 1_000L;
+            var ahora = 2_000L;
+            var federer = new TenistaEntity(1L, "Roger Federer", "Suiza", 185, 85, 9600, "DIESTRO",
+                    LocalDate.of(1981, 8, 8).toEpochDay(), antes, antes, false);
+            var nadal = new TenistaEntity(2L, "Rafael Nadal", "España", 185, 85, 5000, "ZURDO",
+                    LocalDate.of(1986, 6, 3).toEpochDay(), antes, antes, false);
+            db.useTransaction(dao -> dao.upsertBatch(List.of(federer, nadal), antes, 100));
+
+            // Federer igual, Nadal con otros puntos y Djokovic nuevo: 2 cambios
+            var nadalNuevo = new TenistaEntity(2L, "Rafael Nadal", "España", 185, 85, 6000, "ZURDO",
+                    LocalDate.of(1986, 6, 3).toEpochDay(), ahora, ahora, false);
+            var djokovic = new TenistaEntity(3L, "Novak Djokovic", "Serbia", 188, 77, 9000, "DIESTRO",
+                    LocalDate.of(1987, 5, 22).toEpochDay(), ahora, ahora, false);
+            int cambios = db.withTransaction(dao -> {
+                dao.createShadow();
+                dao.insertShadowBatch(List.of(federer, nadalNuevo, djokovic), ahora, 100);
+                int count = dao.countShadowChanges();
+                dao.keepShadowDates();
+                dao.swapShadow();
+                return count;
+            });
+
+            var tenistas = db.with(TenistasDao::selectAll);
+            assertAll(
+                    "Verificar la recarga",
+                    () -> assertEquals(2, cambios, "Deberían contarse un cambio y un nuevo"),
+                    () -> assertEquals(3, tenistas.size(), "Deberían estar los tres tenistas"),
+                    () -> assertEquals(TenistaMapper.fromEpochMilli(antes), tenistas.get(0).getUpdatedAt(), "Federer no ha cambiado y conserva su fecha"),
+                    () -> assertEquals(TenistaMapper.fromEpochMilli(ahora), tenistas.get(1).getUpdatedAt(), "Nadal ha cambiado y tiene la fecha de la recarga"),
+                    () -> assertEquals(TenistaMapper.fromEpochMilli(antes), tenistas.get(1).getCreatedAt(), "Nadal conserva su fecha de creación")
+            );
+        }
+    }
+}
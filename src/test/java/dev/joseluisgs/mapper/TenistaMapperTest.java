@@ -45,7 +45,7 @@ class TenistaMapperTest {
     void fromTenistaDtoToTenista() {
         TenistaDto dto = new TenistaDto(
                 1L, "Roger Federer", "Suiza", 185, 85, 8000, "DIESTRO",
-                "1981-08-08", "2023-01-01T00:00:00", "2023-01-01T00:00:00", false
+                4237L, 1672531200000L, 1672531200000L, false
         );
 
         Tenista tenista = TenistaMapper.toTenista(dto);
@@ -80,9 +80,9 @@ class TenistaMapperTest {
                 () -> assertEquals(tenistaTest.getPeso(), tenista.peso(), "El peso debería coincidir"),
                 () -> assertEquals(tenistaTest.getPuntos(), tenista.puntos(), "Los puntos deberían coincidir"),
                 () -> assertEquals(tenistaTest.getMano().name(), tenista.mano(), "La mano debería coincidir"),
-                () -> assertEquals(tenistaTest.getFechaNacimiento().toString(), tenista.fecha_nacimiento(), "La fecha de nacimiento debería coincidir"),
-                () -> assertEquals(tenistaTest.getCreatedAt().toString(), tenista.created_at(), "La fecha de creación debería coincidir"),
-                () -> assertEquals(tenistaTest.getUpdatedAt().toString(), tenista.updated_at(), "La fecha de actualización debería coincidir"),
+                () -> assertEquals(tenistaTest.getFechaNacimiento().toEpochDay(), tenista.fecha_nacimiento(), "La fecha de nacimiento debería coincidir"),
+                () -> assertEquals(1672531200000L, tenista.created_at(), "La fecha de creación debería coincidir"),
+                () -> assertEquals(1672531200000L, tenista.updated_at(), "La fecha de actualización debería coincidir"),
                 () -> assertEquals(tenistaTest.isDeleted(), tenista.is_deleted(), "El estado de eliminado debería coincidir")
         );
     }
@@ -92,7 +92,7 @@ class TenistaMapperTest {
     void fromTenistaEntityToTenista() {
         TenistaEntity tenista = new TenistaEntity(
                 1L, "Roger Federer", "Suiza", 185, 85, 8000, "DIESTRO",
-                "1981-08-08", "2023-01-01T00:00:00", "2023-01-01T00:00:00", false
+                4237L, 1672531200000L, 1672531200000L, false
         );
 
         Tenista tenistaTest = TenistaMapper.toTenista(tenista);
@@ -106,9 +106,9 @@ class TenistaMapperTest {
                 () -> assertEquals(tenista.peso(), tenistaTest.getPeso(), "El peso debería coincidir"),
                 () -> assertEquals(tenista.puntos(), tenistaTest.getPuntos(), "Los puntos deberían coincidir"),
                 () -> assertEquals(tenista.mano(), tenistaTest.getMano().name(), "La mano debería coincidir"),
-                () -> assertEquals(LocalDate.parse(tenista.fecha_nacimiento()), tenistaTest.getFechaNacimiento(), "La fecha de nacimiento debería coincidir"),
-                () -> assertEquals(LocalDateTime.parse(tenista.created_at()), tenistaTest.getCreatedAt(), "La fecha de creación debería coincidir"),
-                () -> assertEquals(LocalDateTime.parse(tenista.updated_at()), tenistaTest.getUpdatedAt(), "La fecha de actualización debería coincidir"),
+                () -> assertEquals(LocalDate.of(1981, 8, 8), tenistaTest.getFechaNacimiento(), "La fecha de nacimiento debería coincidir"),
+                () -> assertEquals(LocalDateTime.of(2023, 1, 1, 0, 0), tenistaTest.getCreatedAt(), "La fecha de creación debería coincidir"),
+                () -> assertEquals(LocalDateTime.of(2023, 1, 1, 0, 0), tenistaTest.getUpdatedAt(), "La fecha de actualización debería coincidir"),
                 () -> assertEquals(tenista.is_deleted(), tenistaTest.isDeleted(), "El estado de eliminado debería coincidir")
         );
     }
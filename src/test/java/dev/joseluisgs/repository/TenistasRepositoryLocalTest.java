@@ -3,19 +3,21 @@ package dev.joseluisgs.repository;
 import dev.joseluisgs.database.JdbiManager;
 import dev.joseluisgs.database.TenistaEntity;
 import dev.joseluisgs.database.TenistasDao;
+import dev.joseluisgs.error.TenistaError;
 import dev.joseluisgs.mapper.TenistaMapper;
 import dev.joseluisgs.models.Tenista;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -40,11 +42,13 @@ class TenistasRepositoryLocalTest {
     TenistasDao dao;
     @Mock
     JdbiManager<TenistasDao> db;
-    @InjectMocks
     TenistasRepositoryLocal repository;
 
     @BeforeEach
     void setUp() {
+        // Lo creamos antes de definir el comportamiento de db, así la inicialización no toca el dao.
+        // No usamos @InjectMocks porque elegiría el constructor con keepData y no sabe qué pasarle
+        repository = new TenistasRepositoryLocal(db);
 
         // Definimos el comportamiento de los métodos del mock de JdbiManager
 
@@ -75,7 +79,7 @@ class TenistasRepositoryLocalTest {
     @DisplayName("Obteniendo todos los tenistas exitosamente")
     void getAll_TenistasExitosamente() {
         // Arrange
-        List<TenistaEntity> tenistasList = List.of(tenistaEntityTest);
+        List<Tenista> tenistasList = List.of(tenistaTest);
 
         when(dao.selectAll()).thenReturn(tenistasList);
 
@@ -95,11 +99,145 @@ class TenistasRepositoryLocalTest {
         verify(dao, times(1)).selectAll();
     }
 
+    @Test
+    @DisplayName("Recorriendo los tenistas con un Stream que se cierra al cancelar")
+    void streamAll_CierraElCursorAlCancelar() {
+        // Arrange
+        var cerrado = new AtomicBoolean(false);
+        when(db.stream(any())).thenAnswer(invocation -> {
+            JdbiManager.HandleFunction<TenistasDao, Stream<Tenista>> function = invocation.getArgument(0);
+            return function.apply(dao);
+        });
+        when(dao.streamAll()).thenReturn(Stream.of(tenistaTest, tenistaTest).onClose(() -> cerrado.set(true)));
+
+        // Act
+        var result = repository.streamAll().take(1).collectList().block();
+
+        // Assert
+        assertAll(
+                "Verificación de recorrer los tenistas",
+                () -> assertEquals(1, result.size(), "Debe haber un solo tenista"),
+                () -> assertEquals("Roger Federer", result.getFirst().getNombre(), "El nombre del tenista debe ser Roger Federer"),
+                () -> assertTrue(cerrado.get(), "El cursor debe cerrarse al cancelar")
+        );
+
+        verify(dao, times(1)).streamAll();
+        verify(dao, never()).selectAll();
+    }
+
+    @Test
+    @DisplayName("Obteniendo la primera página llena de tenistas")
+    void getPage_PaginaLlenaConCursor() {
+        // Arrange
+        when(dao.selectPage(0L, 1)).thenReturn(List.of(tenistaTest));
+
+        // Act
+        var result = repository.getPage(PageCursor.first(1)).blockOptional();
+
+        // Assert
+        assertAll(
+                "Verificación de obtener una página llena",
+                () -> assertTrue(result.isPresent(), "El resultado no debe ser nulo"),
+                () -> assertTrue(result.get().isRight(), "El resultado debe ser correcto"),
+                () -> assertEquals(1, result.get().get().items().size(), "Debe haber un solo tenista"),
+                () -> assertTrue(result.get().get().hasNext(), "Si la página viene llena puede haber más"),
+                () -> assertEquals(1L, result.get().get().nextCursor().after(), "La siguiente página empieza tras el último id")
+        );
+
+        verify(dao, times(1)).selectPage(0L, 1);
+        verify(dao, never()).selectAll();
+    }
+
+    @Test
+    @DisplayName("Obteniendo la última página de tenistas")
+    void getPage_UltimaPaginaSinCursor() {
+        // Arrange
+        when(dao.selectPage(1L, 10)).thenReturn(List.of());
+
+        // Act
+        var result = repository.getPage(new PageCursor<>(1L, 10)).blockOptional();
+
+        // Assert
+        assertAll(
+                "Verificación de obtener la última página",
+                () -> assertTrue(result.isPresent(), "El resultado no debe ser nulo"),
+                () -> assertTrue(result.get().isRight(), "El resultado debe ser correcto"),
+                () -> assertTrue(result.get().get().items().isEmpty(), "No debe haber tenistas"),
+                () -> assertFalse(result.get().get().hasNext(), "No debe haber siguiente página")
+        );
+
+        verify(dao, times(1)).selectPage(1L, 10);
+    }
+
+    @Test
+    @DisplayName("Obteniendo tenistas por país exitosamente")
+    void getByPais_TenistasExitosamente() {
+        // Arrange
+        when(dao.selectByPais("Suiza")).thenReturn(List.of(tenistaTest));
+
+        // Act
+        var result = repository.getByPais("Suiza").blockOptional();
+
+        // Assert
+        assertAll(
+                "Verificación de obtener tenistas por país",
+                () -> assertTrue(result.isPresent(), "El resultado no debe ser nulo"),
+                () -> assertTrue(result.get().isRight(), "El resultado debe ser correcto"),
+                () -> assertEquals(1, result.get().get().size(), "Debe haber un solo tenista"),
+                () -> assertEquals("Suiza", result.get().get().getFirst().getPais(), "El país del tenista debe ser Suiza")
+        );
+
+        // El filtro lo hace la base de datos, no se cargan todos
+        verify(dao, times(1)).selectByPais("Suiza");
+        verify(dao, never()).selectAll();
+    }
+
+    @Test
+    @DisplayName("Obteniendo varios tenistas por id con una sola consulta")
+    void getByIds_TenistasExitosamente() {
+        // Arrange
+        when(dao.selectByIds(List.of(1L, 2L))).thenReturn(List.of(tenistaTest));
+
+        // Act
+        var result = repository.getByIds(List.of(1L, 2L)).blockOptional();
+
+        // Assert
+        assertAll(
+                "Verificación de obtener tenistas por id",
+                () -> assertTrue(result.isPresent(), "El resultado no debe ser nulo"),
+                () -> assertTrue(result.get().isRight(), "El resultado debe ser correcto"),
+                () -> assertEquals(List.of(tenistaTest), result.get().get(), "Solo debe devolver los que existen")
+        );
+
+        verify(dao, times(1)).selectByIds(List.of(1L, 2L));
+        verify(dao, never()).selectById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Obteniendo el ranking con error en la base de datos")
+    void getRanking_ErrorEnBaseDeDatos() {
+        // Arrange
+        when(dao.selectTopByPuntos(3)).thenThrow(new RuntimeException("Error de conexión"));
+
+        // Act
+        var result = repository.getRanking(3).blockOptional();
+
+        // Assert
+        assertAll(
+                "Verificación del error al obtener el ranking",
+                () -> assertTrue(result.isPresent(), "El resultado no debe ser nulo"),
+                () -> assertTrue(result.get().isLeft(), "El resultado debe ser un error"),
+                () -> assertInstanceOf(TenistaError.DatabaseError.class, result.get().getLeft(), "Debe ser un error de base de datos")
+        );
+
+        verify(dao, times(1)).selectTopByPuntos(3);
+    }
+
     @Test
     @DisplayName("Obteniendo tenista por ID exitosamente")
     void getById_TenistaExitosamente() {
         // Arrange
-        when(dao.selectById(1L)).thenReturn(Optional.of(tenistaEntityTest));
+        when(dao.selectById(1L)).thenReturn(Optional.of(tenistaTest));
 
         // Act
         var result = repository.getById(1L).blockOptional();
@@ -147,8 +285,8 @@ class TenistasRepositoryLocalTest {
                 eq(tenistaEntityTest.puntos()),
                 eq(tenistaEntityTest.mano()),
                 eq(tenistaEntityTest.fecha_nacimiento()),
-                anyString(),
-                anyString())
+                anyLong(),
+                anyLong())
         ).thenReturn(1L);
 
         // Act
@@ -170,8 +308,8 @@ class TenistasRepositoryLocalTest {
                 eq(tenistaEntityTest.puntos()),
                 eq(tenistaEntityTest.mano()),
                 eq(tenistaEntityTest.fecha_nacimiento()),
-                anyString(),
-                anyString());
+                anyLong(),
+                anyLong());
     }
 
     @Test
@@ -187,7 +325,7 @@ class TenistasRepositoryLocalTest {
                 eq(tenistaEntityTest.puntos()),
                 eq(tenistaEntityTest.mano()),
                 eq(tenistaEntityTest.fecha_nacimiento()),
-                anyString(),
+                anyLong(),
                 eq(tenistaEntityTest.is_deleted()))).thenReturn(1);
 
         // Act
@@ -210,7 +348,7 @@ class TenistasRepositoryLocalTest {
                 eq(tenistaEntityTest.puntos()),
                 eq(tenistaEntityTest.mano()),
                 eq(tenistaEntityTest.fecha_nacimiento()),
-                anyString(),
+                anyLong(),
                 eq(tenistaEntityTest.is_deleted()));
     }
 
@@ -227,7 +365,7 @@ class TenistasRepositoryLocalTest {
                 eq(tenistaEntityTest.puntos()),
                 eq(tenistaEntityTest.mano()),
                 eq(tenistaEntityTest.fecha_nacimiento()),
-                anyString(),
+                anyLong(),
                 eq(tenistaEntityTest.is_deleted()))).thenReturn(0);
 
         // Act
@@ -250,7 +388,7 @@ class TenistasRepositoryLocalTest {
                 eq(tenistaEntityTest.puntos()),
                 eq(tenistaEntityTest.mano()),
                 eq(tenistaEntityTest.fecha_nacimiento()),
-                anyString(),
+                anyLong(),
                 eq(tenistaEntityTest.is_deleted()));
     }
 
@@ -320,16 +458,8 @@ class TenistasRepositoryLocalTest {
         List<Tenista> tenistasList = List.of(tenistaTest);
         List<TenistaEntity> tenistaEntities = List.of(tenistaEntityTest);
 
-        when(dao.insert(
-                eq(tenistaEntityTest.nombre()),
-                eq(tenistaEntityTest.pais()),
-                eq(tenistaEntityTest.altura()),
-                eq(tenistaEntityTest.peso()),
-                eq(tenistaEntityTest.puntos()),
-                eq(tenistaEntityTest.mano()),
-                eq(tenistaEntityTest.fecha_nacimiento()),
-                anyString(),
-                anyString())).thenReturn(1L);
+        when(dao.insertBatch(eq(tenistaEntities), anyLong(), eq(TenistasRepositoryLocal.DEFAULT_BATCH_SIZE)))
+                .thenReturn(new int[]{1});
 
         // Act
         var result = repository.saveAll(tenistasList).blockOptional();
@@ -342,15 +472,124 @@ class TenistasRepositoryLocalTest {
                 () -> assertEquals(1, result.get().get(), "El número de tenistas guardados debe ser 1")
         );
 
-        verify(dao, times(1)).insert(
-                eq(tenistaEntityTest.nombre()),
-                eq(tenistaEntityTest.pais()),
-                eq(tenistaEntityTest.altura()),
-                eq(tenistaEntityTest.peso()),
-                eq(tenistaEntityTest.puntos()),
-                eq(tenistaEntityTest.mano()),
-                eq(tenistaEntityTest.fecha_nacimiento()),
-                anyString(),
-                anyString());
+        verify(dao, times(1)).insertBatch(eq(tenistaEntities), anyLong(), eq(TenistasRepositoryLocal.DEFAULT_BATCH_SIZE));
+        verify(dao, never()).insert(anyString(), anyString(), anyInt(), anyInt(), anyInt(), anyString(), anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Guardando todos los tenistas y obteniendo sus ids")
+    void saveAllAndGet_TenistasConIds() {
+        // Arrange
+        Tenista otroTenista = Tenista.builder()
+                .nombre("Rafa Nadal")
+                .pais("España")
+                .altura(185)
+                .peso(85)
+                .puntos(8000)
+                .mano(Tenista.Mano.ZURDO)
+                .fechaNacimiento(LocalDate.of(1986, 6, 3))
+                .build();
+        List<Tenista> tenistasList = List.of(tenistaTest, otroTenista);
+
+        when(dao.insertBatch(anyList(), anyLong(), anyInt())).thenReturn(new int[]{1, 1});
+        when(dao.lastInsertId()).thenReturn(11L);
+
+        // Act
+        var result = repository.saveAllAndGet(tenistasList).blockOptional();
+
+        // Assert
+        assertAll(
+                "Verificación de guardar todos los tenistas con sus ids",
+                () -> assertTrue(result.isPresent(), " no debe ser nulo"),
+                () -> assertTrue(result.get().isRight(), "El resultado debe ser correcto"),
+                () -> assertEquals(10L, result.get().get().get(0).getId(), "El primero debe tener el primer id del lote"),
+                () -> assertEquals(11L, result.get().get().get(1).getId(), "El último debe tener el último id generado")
+        );
+
+        verify(dao, times(1)).insertBatch(anyList(), anyLong(), anyInt());
+        verify(dao, times(1)).lastInsertId();
+    }
+
+    @Test
+    @DisplayName("Sincronizando solo debe contar lo escrito y borrar los que ya no están")
+    void syncAll_CuentaCambiosYBorraLosQueFaltan() {
+        // Arrange
+        Tenista otro = Tenista.builder().id(2L).nombre("Rafa Nadal").pais("España").altura(185).peso(85)
+                .puntos(8000).mano(Tenista.Mano.ZURDO).fechaNacimiento(LocalDate.of(1986, 6, 3)).build();
+        // El primero no cambia y el segundo es nuevo, el 5 ya no existe
+        when(dao.upsertBatch(anyList(), anyLong(), eq(TenistasRepositoryLocal.DEFAULT_BATCH_SIZE))).thenReturn(new int[]{0, 1});
+        when(dao.selectIds()).thenReturn(List.of(1L, 2L, 5L));
+
+        // Act
+        var result = repository.syncAll(List.of(tenistaTest, otro)).blockOptional();
+
+        // Assert
+        assertAll(
+                "Verificación de sincronizar tenistas",
+                () -> assertTrue(result.isPresent(), "El resultado no debe ser nulo"),
+                () -> assertTrue(result.get().isRight(), "El resultado debe ser correcto"),
+                () -> assertEquals(2, result.get().get(), "Debe haber un insertado y un borrado")
+        );
+
+        verify(dao, times(1)).deleteBatch(List.of(5L));
+        verify(dao, never()).removeAll();
+    }
+
+    @Test
+    @DisplayName("Recargando se llena la tabla en sombra y luego se cambia por la actual")
+    void replaceAll_CargaEnSombraYCambia() {
+        // Arrange
+        when(dao.countShadowChanges()).thenReturn(1);
+
+        // Act
+        var result = repository.replaceAll(List.of(tenistaTest)).blockOptional();
+
+        // Assert
+        assertAll(
+                "Verificación de recargar tenistas",
+                () -> assertTrue(result.isPresent(), "El resultado no debe ser nulo"),
+                () -> assertTrue(result.get().isRight(), "El resultado debe ser correcto"),
+                () -> assertEquals(1, result.get().get(), "Debe haber un cambio")
+        );
+
+        var inOrder = inOrder(db, dao);
+        inOrder.verify(db).withTransaction(any());
+        inOrder.verify(dao).createShadow();
+        inOrder.verify(dao).insertShadowBatch(eq(List.of(tenistaEntityTest)), anyLong(), eq(TenistasRepositoryLocal.DEFAULT_BATCH_SIZE));
+        inOrder.verify(dao).keepShadowDates();
+        inOrder.verify(dao).swapShadow();
+        verify(db, never()).use(any());
+        verify(dao, never()).removeAll();
+    }
+
+    @Test
+    @DisplayName("Recargando sin cambios no se debe cambiar la tabla")
+    void replaceAll_SinCambiosNoCambiaLaTabla() {
+        // Arrange
+        when(dao.countShadowChanges()).thenReturn(0);
+
+        // Act
+        var result = repository.replaceAll(List.of(tenistaTest)).blockOptional();
+
+        // Assert
+        assertAll(
+                "Verificación de recargar sin cambios",
+                () -> assertTrue(result.isPresent(), "El resultado no debe ser nulo"),
+                () -> assertTrue(result.get().isRight(), "El resultado debe ser correcto"),
+                () -> assertEquals(0, result.get().get(), "No debe haber cambios")
+        );
+
+        verify(dao, times(1)).dropShadow();
+        verify(dao, never()).swapShadow();
+    }
+
+    @Test
+    @DisplayName("Al cerrar el repositorio se debe cerrar la base de datos")
+    void close_CierraLaBaseDeDatos() {
+        // Act
+        repository.close();
+
+        // Assert
+        verify(db, times(1)).close();
     }
 }
@@ -1,6 +1,7 @@
 package dev.joseluisgs.repository;
 
 import dev.joseluisgs.dto.TenistaDto;
+import dev.joseluisgs.error.TenistaError;
 import dev.joseluisgs.mapper.TenistaMapper;
 import dev.joseluisgs.models.Tenista;
 import dev.joseluisgs.rest.TenistasApiRest;
@@ -10,7 +11,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
 import reactor.core.publisher.Mono;
+import retrofit2.HttpException;
+import retrofit2.Response;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -62,6 +67,29 @@ class TenistasRepositoryRemoteTest {
         verify(rest, times(1)).getAll();
     }
 
+    @Test
+    @DisplayName("Obtener una página de tenistas - Correcto")
+    void getPage_Correcto() {
+        // Arrange
+        var otro = TenistaMapper.toTenistaDto(tenistaTest.id(2L));
+        when(rest.getAll()).thenReturn(Mono.just(List.of(otro, tenistaEntityTest)));
+
+        // Act
+        var result = repository.getPage(PageCursor.first(1)).blockOptional();
+
+        // Assert
+        assertAll(
+                "Verificación de obtener una página",
+                () -> assertTrue(result.isPresent(), "El resultado no debe ser nulo"),
+                () -> assertTrue(result.get().isRight(), "El resultado debe ser correcto"),
+                () -> assertEquals(1L, result.get().get().items().getFirst().getId(), "La página va en orden de id"),
+                () -> assertTrue(result.get().get().hasNext(), "Debe haber siguiente página")
+        );
+
+        // Verify
+        verify(rest, times(1)).getAll();
+    }
+
     @Test
     @DisplayName("Obteniendo tenista por ID exitosamente")
     void getById_TenistaExitosamente() {
@@ -104,6 +132,27 @@ class TenistasRepositoryRemoteTest {
         verify(rest, times(1)).getById(1L);
     }
 
+    @Test
+    @DisplayName("Obteniendo tenista por ID que la api no tiene - NotFound")
+    void getById_TenistaNoExistenteEnApi() {
+        // Arrange
+        when(rest.getById(1L)).thenReturn(Mono.error(new HttpException(Response.error(404, ResponseBody.create("", (MediaType) null)))));
+
+        // Act
+        var result = repository.getById(1L).blockOptional();
+
+        // Assert
+        assertAll(
+                "Verificación de obtener tenista por ID no existente en la api",
+                () -> assertTrue(result.isPresent(), "El resultado no debe ser nulo"),
+                () -> assertTrue(result.get().isLeft(), "El resultado debe ser un error"),
+                () -> assertInstanceOf(TenistaError.NotFound.class, result.get().getLeft(), "El error debe ser de no encontrado")
+        );
+
+        // Verify
+        verify(rest, times(1)).getById(1L);
+    }
+
     @Test
     @DisplayName("Guardar tenista - Correcto")
     void save_TenistaCorrectamente() {
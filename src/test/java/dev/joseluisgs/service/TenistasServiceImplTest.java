@@ -1,6 +1,7 @@
 package dev.joseluisgs.service;
 
 import dev.joseluisgs.cache.TenistasCache;
+import dev.joseluisgs.cache.TenistasNegativeCache;
 import dev.joseluisgs.error.TenistaError;
 import dev.joseluisgs.models.Tenista;
 import dev.joseluisgs.notification.TenistasNotifications;
@@ -15,13 +16,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.io.File;
 import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -45,6 +50,8 @@ class TenistasServiceImplTest {
     @Mock
     private TenistasCache cache;
     @Mock
+    private TenistasNegativeCache negativeCache;
+    @Mock
     private TenistasStorageCsv csvStorage;
     @Mock
     private TenistasStorageJson jsonStorage;
@@ -76,8 +83,7 @@ class TenistasServiceImplTest {
     void obtenerTodosDesdeRepositorioRemoto() {
 
         when(remoteRepository.getAll()).thenReturn(Mono.just(Either.right(List.of(tenistaTest))));
-        when(localRepository.removeAll()).thenReturn(Mono.just(Either.right(null)));
-        when(localRepository.saveAll(any())).thenReturn(Mono.just(Either.right(1)));
+        when(localRepository.syncAll(any())).thenReturn(Mono.just(Either.right(1)));
         when(localRepository.getAll()).thenReturn(Mono.just(Either.right(List.of(tenistaTest))));
 
         var resultado = service.getAll(true).blockOptional();
@@ -88,12 +94,57 @@ class TenistasServiceImplTest {
                 () -> assertEquals(1, resultado.get().get().size(), "El número de tenistas correcto")
         );
 
-        verify(localRepository, times(1)).removeAll();
+        verify(localRepository, never()).removeAll();
         verify(remoteRepository, times(1)).getAll();
-        verify(localRepository, times(1)).saveAll(any());
+        verify(localRepository, times(1)).syncAll(any());
         verify(localRepository, times(1)).getAll();
     }
 
+    @Test
+    @DisplayName("Al obtener desde remoto solo debe actualizar en cache los tenistas que han cambiado")
+    void obtenerTodosDesdeRemotoActualizaSoloLosCambiados() {
+        // La sincronización pone la fecha de actualización solo a las filas que escribe
+        Tenista cambiado = Tenista.builder().id(1L).nombre("Roger Federer").pais("Suiza").altura(185).peso(85)
+                .puntos(100).mano(Tenista.Mano.DIESTRO).fechaNacimiento(LocalDate.of(1981, 8, 8))
+                .updatedAt(LocalDateTime.now().plusMinutes(1)).build();
+        Tenista sinCambios = Tenista.builder().id(3L).nombre("Novak Djokovic").pais("Serbia").altura(188).peso(77)
+                .puntos(9000).mano(Tenista.Mano.DIESTRO).fechaNacimiento(LocalDate.of(1987, 5, 22))
+                .updatedAt(LocalDateTime.now().minusDays(1)).build();
+        Tenista nuevo = Tenista.builder().id(4L).nombre("Carlos Alcaraz").pais("España").altura(183).peso(74)
+                .puntos(7000).mano(Tenista.Mano.DIESTRO).fechaNacimiento(LocalDate.of(2003, 5, 5))
+                .updatedAt(LocalDateTime.now().plusMinutes(1)).build();
+        when(remoteRepository.getAll()).thenReturn(Mono.just(Either.right(List.of(tenistaTest))));
+        when(localRepository.syncAll(any())).thenReturn(Mono.just(Either.right(2)));
+        when(localRepository.getAll()).thenReturn(Mono.just(Either.right(List.of(cambiado, sinCambios, nuevo))));
+        when(cache.keys()).thenReturn(Set.of(1L, 2L, 3L));
+
+        service.getAll(true).block();
+
+        verify(cache, times(1)).putAll(Map.of(1L, cambiado));
+        // El nuevo no está en la cache pero se invalida por si se estaba cargando, el 2 ya no existe
+        verify(cache, times(1)).invalidateAll(List.of(4L, 2L));
+        verify(cache, never()).values();
+        verify(cache, never()).clear();
+    }
+
+    @Test
+    @DisplayName("Obtener el ranking desde el repositorio local")
+    void obtenerRankingDesdeRepositorioLocal() {
+
+        when(localRepository.getRanking(3)).thenReturn(Mono.just(Either.right(List.of(tenistaTest))));
+
+        var resultado = service.getRanking(3).blockOptional();
+
+        assertAll("Verificación de obtener el ranking",
+                () -> assertTrue(resultado.isPresent(), "Se se ha obtenido resultado"),
+                () -> assertTrue(resultado.get().isRight(), "Se ha obtenido resultado correcto"),
+                () -> assertEquals(1, resultado.get().get().size(), "El número de tenistas correcto")
+        );
+
+        verify(localRepository, times(1)).getRanking(3);
+        verify(localRepository, never()).getAll();
+    }
+
     @Test
     @DisplayName("Obtener tenista por ID existente en cache")
     void obtenerTenistaPorIdEnCache() {
@@ -138,7 +189,7 @@ class TenistasServiceImplTest {
         when(localRepository.getById(tenistaTest.getId())).thenReturn(Mono.just(Either.left(null)));
         when(remoteRepository.getById(tenistaTest.getId())).thenReturn(Mono.just(Either.right(tenistaTest)));
         when(localRepository.save(tenistaTest)).thenReturn(Mono.just(Either.right(tenistaTest)));
-        doNothing().when(cache).put(tenistaTest.getId(), tenistaTest);
+        doNothing().when(cache).put(Long.valueOf(tenistaTest.getId()), tenistaTest);
 
         var resultado = service.getById(tenistaTest.getId()).blockOptional();
 
@@ -152,7 +203,7 @@ class TenistasServiceImplTest {
         verify(localRepository, times(1)).getById(tenistaTest.getId());
         verify(remoteRepository, times(1)).getById(tenistaTest.getId());
         verify(localRepository, times(1)).save(tenistaTest);
-        verify(cache, times(1)).put(tenistaTest.getId(), tenistaTest);
+        verify(cache, times(1)).put(Long.valueOf(tenistaTest.getId()), tenistaTest);
 
     }
 
@@ -175,7 +226,93 @@ class TenistasServiceImplTest {
         verify(localRepository, times(1)).getById(tenistaTest.getId());
         verify(remoteRepository, times(1)).getById(tenistaTest.getId());
         verify(localRepository, times(0)).save(tenistaTest);
-        verify(cache, times(0)).put(tenistaTest.getId(), tenistaTest);
+        verify(cache, times(0)).put(Long.valueOf(tenistaTest.getId()), tenistaTest);
+        verify(negativeCache, times(1)).put(eq(Long.valueOf(tenistaTest.getId())), any(TenistaError.NotFound.class));
+    }
+
+    @Test
+    @DisplayName("Obtener tenista por ID con fallo en remoto no lo da por inexistente")
+    void obtenerTenistaPorIdConFalloRemoto() {
+        when(cache.get(tenistaTest.getId())).thenReturn(null);
+        when(localRepository.getById(tenistaTest.getId())).thenReturn(Mono.just(Either.left(null)));
+        when(remoteRepository.getById(tenistaTest.getId())).thenReturn(Mono.just(Either.left(new TenistaError.RemoteError("api caída"))));
+
+        var resultado = service.getById(tenistaTest.getId()).blockOptional();
+
+        assertAll("Verificación de obtener tenista por ID",
+                () -> assertTrue(resultado.isPresent(), "Se se ha obtenido resultado"),
+                () -> assertTrue(resultado.get().isLeft(), "Se ha obtenido un error"),
+                () -> assertInstanceOf(TenistaError.RemoteError.class, resultado.get().getLeft(), "El error es el del remoto"),
+                () -> assertEquals("ERROR: api caída", resultado.get().getLeft().getMessage(), "El mensaje de error es correcto")
+        );
+
+        verify(remoteRepository, times(1)).getById(tenistaTest.getId());
+        verify(cache, never()).put(any(Long.class), any(Tenista.class));
+        verify(negativeCache, never()).put(any(Long.class), any(TenistaError.class));
+    }
+
+    @Test
+    @DisplayName("Obtener tenista por ID simultáneamente hace una sola carga")
+    void obtenerTenistaPorIdSimultaneamenteHaceUnaSolaCarga() {
+        when(cache.get(tenistaTest.getId())).thenReturn(null);
+        when(localRepository.getById(tenistaTest.getId()))
+                .thenReturn(Mono.just(Either.<TenistaError, Tenista>right(tenistaTest)).delayElement(Duration.ofMillis(100)));
+
+        var primero = service.getById(tenistaTest.getId());
+        var segundo = service.getById(tenistaTest.getId());
+
+        var resultados = Mono.zip(primero, segundo).blockOptional();
+
+        assertAll("Verificación de la carga compartida",
+                () -> assertTrue(resultados.isPresent(), "Se se ha obtenido resultado"),
+                () -> assertEquals(tenistaTest, resultados.get().getT1().get(), "El primer tenista obtenido es correcto"),
+                () -> assertEquals(tenistaTest, resultados.get().getT2().get(), "El segundo tenista obtenido es correcto")
+        );
+
+        verify(cache, times(2)).get(tenistaTest.getId());
+        verify(localRepository, times(1)).getById(tenistaTest.getId());
+        verify(cache, times(1)).put(Long.valueOf(tenistaTest.getId()), tenistaTest);
+    }
+
+    @Test
+    @DisplayName("Obtener tenista por ID no existente desde la cache negativa")
+    void obtenerTenistaPorIdNoExistenteDesdeCacheNegativa() {
+        when(cache.get(tenistaTest.getId())).thenReturn(null);
+        when(negativeCache.get(tenistaTest.getId())).thenReturn(new TenistaError.NotFound(tenistaTest.getId()));
+
+        var resultado = service.getById(tenistaTest.getId()).blockOptional();
+
+        assertAll("Verificación de obtener tenista por ID",
+                () -> assertTrue(resultado.isPresent(), "Se se ha obtenido resultado"),
+                () -> assertTrue(resultado.get().isLeft(), "Se ha obtenido resultado correcto"),
+                () -> assertEquals("ERROR: No se ha encontrado el tenista con id: 1", resultado.get().getLeft().getMessage(), "El mensaje de error es correcto")
+        );
+
+        verify(negativeCache, times(1)).get(tenistaTest.getId());
+        verify(localRepository, times(0)).getById(tenistaTest.getId());
+        verify(remoteRepository, times(0)).getById(tenistaTest.getId());
+    }
+
+    @Test
+    @DisplayName("Obtener varios tenistas por ID carga los que faltan con una sola consulta")
+    void obtenerTenistasPorIdsConUnaSolaConsulta() {
+        Tenista enCache = Tenista.builder().id(2L).nombre("Rafa Nadal").pais("España").altura(185).peso(85)
+                .puntos(8000).mano(Tenista.Mano.ZURDO).fechaNacimiento(LocalDate.of(1986, 6, 3)).build();
+        when(cache.getAll(List.of(1L, 2L))).thenReturn(Map.of(2L, enCache));
+        when(localRepository.getByIds(Set.of(1L))).thenReturn(Mono.just(Either.right(List.of(tenistaTest))));
+
+        var resultado = service.getByIds(List.of(1L, 2L)).blockOptional();
+
+        assertAll("Verificación de obtener tenistas por ID",
+                () -> assertTrue(resultado.isPresent(), "Se se ha obtenido resultado"),
+                () -> assertTrue(resultado.get().isRight(), "Se ha obtenido resultado correcto"),
+                () -> assertEquals(List.of(tenistaTest, enCache), resultado.get().get(), "Los tenistas en el orden pedido")
+        );
+
+        verify(localRepository, times(1)).getByIds(Set.of(1L));
+        verify(localRepository, never()).getById(anyLong());
+        verify(remoteRepository, never()).getById(anyLong());
+        verify(cache, times(1)).put(Long.valueOf(1L), tenistaTest);
     }
 
     @Test
@@ -183,7 +320,7 @@ class TenistasServiceImplTest {
     void guardarTenistaCorrectamente() {
         when(remoteRepository.save(tenistaTest)).thenReturn(Mono.just(Either.right(tenistaTest)));
         when(localRepository.save(tenistaTest)).thenReturn(Mono.just(Either.right(tenistaTest)));
-        doNothing().when(cache).put(tenistaTest.getId(), tenistaTest);
+        doNothing().when(cache).put(Long.valueOf(tenistaTest.getId()), tenistaTest);
 
         var resultado = service.save(tenistaTest).blockOptional();
 
@@ -195,7 +332,8 @@ class TenistasServiceImplTest {
 
         verify(localRepository, times(1)).save(tenistaTest);
         verify(remoteRepository, times(1)).save(tenistaTest);
-        verify(cache, times(1)).put(tenistaTest.getId(), tenistaTest);
+        verify(cache, times(1)).put(Long.valueOf(tenistaTest.getId()), tenistaTest);
+        verify(negativeCache, times(1)).remove(tenistaTest.getId());
     }
 
     @Test
@@ -222,7 +360,7 @@ class TenistasServiceImplTest {
 
         verify(localRepository, times(0)).save(tenistaTest);
         verify(remoteRepository, times(0)).save(tenistaTest);
-        verify(cache, times(0)).put(tenistaTest.getId(), tenistaTest);
+        verify(cache, times(0)).put(Long.valueOf(tenistaTest.getId()), tenistaTest);
     }
 
     @Test
@@ -240,7 +378,7 @@ class TenistasServiceImplTest {
 
         verify(localRepository, times(0)).save(tenistaTest);
         verify(remoteRepository, times(1)).save(tenistaTest);
-        verify(cache, times(0)).put(tenistaTest.getId(), tenistaTest);
+        verify(cache, times(0)).put(Long.valueOf(tenistaTest.getId()), tenistaTest);
     }
 
     @Test
@@ -249,7 +387,7 @@ class TenistasServiceImplTest {
         when(cache.get(tenistaTest.getId())).thenReturn(tenistaTest);
         when(remoteRepository.update(tenistaTest.getId(), tenistaTest)).thenReturn(Mono.just(Either.right(tenistaTest)));
         when(localRepository.update(tenistaTest.getId(), tenistaTest)).thenReturn(Mono.just(Either.right(tenistaTest)));
-        doNothing().when(cache).put(tenistaTest.getId(), tenistaTest);
+        doNothing().when(cache).put(Long.valueOf(tenistaTest.getId()), tenistaTest);
 
         var resultado = service.update(tenistaTest.getId(), tenistaTest).blockOptional();
 
@@ -261,7 +399,7 @@ class TenistasServiceImplTest {
 
         verify(localRepository, times(1)).update(tenistaTest.getId(), tenistaTest);
         verify(remoteRepository, times(1)).update(tenistaTest.getId(), tenistaTest);
-        verify(cache, times(1)).put(tenistaTest.getId(), tenistaTest);
+        verify(cache, times(1)).put(Long.valueOf(tenistaTest.getId()), tenistaTest);
     }
 
     @Test
@@ -288,7 +426,7 @@ class TenistasServiceImplTest {
 
         verify(localRepository, times(0)).update(tenistaTest.getId(), tenistaTest);
         verify(remoteRepository, times(0)).update(tenistaTest.getId(), tenistaTest);
-        verify(cache, times(0)).put(tenistaTest.getId(), tenistaTest);
+        verify(cache, times(0)).put(Long.valueOf(tenistaTest.getId()), tenistaTest);
     }
 
     @Test
@@ -307,7 +445,7 @@ class TenistasServiceImplTest {
 
         verify(localRepository, times(0)).update(tenistaTest.getId(), tenistaTest);
         verify(remoteRepository, times(1)).update(tenistaTest.getId(), tenistaTest);
-        verify(cache, times(0)).put(tenistaTest.getId(), tenistaTest);
+        verify(cache, times(0)).put(Long.valueOf(tenistaTest.getId()), tenistaTest);
     }
 
     @Test
@@ -326,7 +464,7 @@ class TenistasServiceImplTest {
 
         verify(localRepository, times(0)).update(tenistaTest.getId(), tenistaTest);
         verify(remoteRepository, times(1)).update(tenistaTest.getId(), tenistaTest);
-        verify(cache, times(0)).put(tenistaTest.getId(), tenistaTest);
+        verify(cache, times(0)).put(Long.valueOf(tenistaTest.getId()), tenistaTest);
     }
 
     @Test
@@ -396,7 +534,7 @@ class TenistasServiceImplTest {
         when(csvStorage.importFile(file)).thenReturn(Mono.just(Either.right(List.of(tenistaTest))));
         when(localRepository.removeAll()).thenReturn(Mono.just(Either.right(null)));
         when(remoteRepository.save(tenistaTest)).thenReturn(Mono.just(Either.right(tenistaTest)));
-        when(localRepository.save(tenistaTest)).thenReturn(Mono.just(Either.right(tenistaTest)));
+        when(localRepository.saveAllAndGet(List.of(tenistaTest))).thenReturn(Mono.just(Either.right(List.of(tenistaTest))));
 
         var resultado = service.importData(file).blockOptional();
 
@@ -409,7 +547,8 @@ class TenistasServiceImplTest {
         verify(csvStorage, times(1)).importFile(file);
         verify(localRepository, times(1)).removeAll();
         verify(remoteRepository, times(1)).save(tenistaTest);
-        verify(localRepository, times(1)).save(tenistaTest);
+        verify(localRepository, times(1)).saveAllAndGet(List.of(tenistaTest));
+        verify(cache, times(1)).putAll(Map.of(tenistaTest.getId(), tenistaTest));
     }
 
     @Test
@@ -420,7 +559,7 @@ class TenistasServiceImplTest {
         when(jsonStorage.importFile(file)).thenReturn(Mono.just(Either.right(List.of(tenistaTest))));
         when(localRepository.removeAll()).thenReturn(Mono.just(Either.right(null)));
         when(remoteRepository.save(tenistaTest)).thenReturn(Mono.just(Either.right(tenistaTest)));
-        when(localRepository.save(tenistaTest)).thenReturn(Mono.just(Either.right(tenistaTest)));
+        when(localRepository.saveAllAndGet(List.of(tenistaTest))).thenReturn(Mono.just(Either.right(List.of(tenistaTest))));
 
         var resultado = service.importData(file).blockOptional();
 
@@ -433,7 +572,8 @@ class TenistasServiceImplTest {
         verify(jsonStorage, times(1)).importFile(file);
         verify(localRepository, times(1)).removeAll();
         verify(remoteRepository, times(1)).save(tenistaTest);
-        verify(localRepository, times(1)).save(tenistaTest);
+        verify(localRepository, times(1)).saveAllAndGet(List.of(tenistaTest));
+        verify(cache, times(1)).putAll(Map.of(tenistaTest.getId(), tenistaTest));
     }
 
     @Test
@@ -462,8 +602,9 @@ class TenistasServiceImplTest {
     void exportarFicheroCSVLocal() {
         var file = new File("test.csv");
 
-        when(localRepository.getAll()).thenReturn(Mono.just(Either.right(List.of(tenistaTest))));
-        when(csvStorage.exportFile(file, List.of(tenistaTest))).thenReturn(Mono.just(Either.right(1)));
+        Flux<Tenista> tenistas = Flux.just(tenistaTest);
+        when(localRepository.streamAll()).thenReturn(tenistas);
+        when(csvStorage.exportFile(file, tenistas)).thenReturn(Mono.just(Either.right(1)));
 
         var resultado = service.exportData(file, false).blockOptional();
 
@@ -473,8 +614,9 @@ class TenistasServiceImplTest {
                 () -> assertEquals(1, resultado.get().get(), "El fichero exportado es correcto")
         );
 
-        verify(localRepository, times(1)).getAll();
-        verify(csvStorage, times(1)).exportFile(file, List.of(tenistaTest));
+        verify(localRepository, times(1)).streamAll();
+        verify(localRepository, never()).getAll();
+        verify(csvStorage, times(1)).exportFile(file, tenistas);
     }
 
     @Test
@@ -502,8 +644,9 @@ class TenistasServiceImplTest {
     void exportarFicheroJSONLocal() {
         var file = new File("test.json");
 
-        when(localRepository.getAll()).thenReturn(Mono.just(Either.right(List.of(tenistaTest))));
-        when(jsonStorage.exportFile(file, List.of(tenistaTest))).thenReturn(Mono.just(Either.right(1)));
+        Flux<Tenista> tenistas = Flux.just(tenistaTest);
+        when(localRepository.streamAll()).thenReturn(tenistas);
+        when(jsonStorage.exportFile(file, tenistas)).thenReturn(Mono.just(Either.right(1)));
 
         var resultado = service.exportData(file, false).blockOptional();
 
@@ -513,8 +656,9 @@ class TenistasServiceImplTest {
                 () -> assertEquals(1, resultado.get().get(), "El fichero exportado es correcto")
         );
 
-        verify(localRepository, times(1)).getAll();
-        verify(jsonStorage, times(1)).exportFile(file, List.of(tenistaTest));
+        verify(localRepository, times(1)).streamAll();
+        verify(localRepository, never()).getAll();
+        verify(jsonStorage, times(1)).exportFile(file, tenistas);
     }
 
     @Test
@@ -543,8 +687,9 @@ class TenistasServiceImplTest {
         var file = new File("test.json");
 
         // Mocks
-        when(localRepository.getAll()).thenReturn(Mono.just(Either.right(List.of(tenistaTest))));
-        when(jsonStorage.exportFile(file, List.of(tenistaTest))).thenReturn(Mono.just(Either.left(new TenistaError.StorageError("Error al exportar"))));
+        Flux<Tenista> tenistas = Flux.just(tenistaTest);
+        when(localRepository.streamAll()).thenReturn(tenistas);
+        when(jsonStorage.exportFile(file, tenistas)).thenReturn(Mono.just(Either.left(new TenistaError.StorageError("Error al exportar"))));
 
         // Llamada al servicio
         var resultado = service.exportData(file, false).blockOptional();
@@ -557,16 +702,17 @@ class TenistasServiceImplTest {
         );
 
         // Verificaciones de interacciones con los mocks
-        verify(localRepository, times(1)).getAll();
-        verify(jsonStorage, times(1)).exportFile(file, List.of(tenistaTest));
+        verify(localRepository, times(1)).streamAll();
+        verify(localRepository, never()).getAll();
+        verify(jsonStorage, times(1)).exportFile(file, tenistas);
     }
 
     @Test
     @DisplayName("Load data debe cargar los datos")
     void loadData() {
-        when(localRepository.removeAll()).thenReturn(Mono.just(Either.right(null)));
         when(remoteRepository.getAll()).thenReturn(Mono.just(Either.right(List.of(tenistaTest))));
-        when(localRepository.saveAll(List.of(tenistaTest))).thenReturn(Mono.just(Either.right(1)));
+        when(localRepository.syncAll(List.of(tenistaTest))).thenReturn(Mono.just(Either.right(1)));
+        when(localRepository.getAll()).thenReturn(Mono.just(Either.right(List.of(tenistaTest))));
 
         // Como no devuelve nada, no se puede hacer un assert, por eso se usa StepVerifier
         StepVerifier.create(
@@ -576,18 +722,51 @@ class TenistasServiceImplTest {
                 .verifyComplete();
 
 
-        verify(localRepository, times(1)).removeAll();
+        verify(localRepository, never()).removeAll();
         verify(remoteRepository, times(1)).getAll();
-        verify(localRepository, times(1)).saveAll(List.of(tenistaTest));
+        verify(localRepository, times(1)).syncAll(List.of(tenistaTest));
+        // La carga es asíncrona, esperamos a que termine
+        verify(localRepository, timeout(1000)).getAll();
+        verify(cache, never()).clear();
+    }
+
+    @Test
+    @DisplayName("Load data no debe tocar la cache si no ha cambiado nada")
+    void loadDataSinCambios() {
+        when(remoteRepository.getAll()).thenReturn(Mono.just(Either.right(List.of(tenistaTest))));
+        when(localRepository.syncAll(List.of(tenistaTest))).thenReturn(Mono.just(Either.right(0)));
+
+        service.loadData();
+
+        // La carga es asíncrona, esperamos a que termine
+        verify(localRepository, timeout(1000)).syncAll(List.of(tenistaTest));
+        verify(localRepository, never()).getAll();
+        verify(cache, never()).putAll(any());
+        verify(notificationsService, never()).send(any());
+    }
+
+    @Test
+    @DisplayName("Load data con recarga completa debe cambiar la tabla entera")
+    void loadDataConRecargaCompleta() {
+        when(remoteRepository.getAll()).thenReturn(Mono.just(Either.right(List.of(tenistaTest))));
+        when(localRepository.replaceAll(List.of(tenistaTest))).thenReturn(Mono.just(Either.right(1)));
+        when(localRepository.getAll()).thenReturn(Mono.just(Either.right(List.of(tenistaTest))));
+
+        service.fullReload(true).loadData();
+
+        // La carga es asíncrona, esperamos a que termine
+        verify(localRepository, timeout(1000)).getAll();
+        verify(localRepository, times(1)).replaceAll(List.of(tenistaTest));
+        verify(localRepository, never()).syncAll(any());
     }
 
     @Test
     @DisplayName("Refresh debe actualizar los datos")
     void enableAutoRefresh() {
 
-        when(localRepository.removeAll()).thenReturn(Mono.just(Either.right(null)));
         when(remoteRepository.getAll()).thenReturn(Mono.just(Either.right(List.of(tenistaTest))));
-        when(localRepository.saveAll(any())).thenReturn(Mono.just(Either.right(1)));
+        when(localRepository.syncAll(any())).thenReturn(Mono.just(Either.right(1)));
+        when(localRepository.getAll()).thenReturn(Mono.just(Either.right(List.of(tenistaTest))));
 
         // El método a testear
         service.enableAutoRefresh();
@@ -599,9 +778,9 @@ class TenistasServiceImplTest {
                 .verifyComplete();
 
         // Verify interactions
-        verify(localRepository, times(1)).removeAll();
+        verify(localRepository, never()).removeAll();
         verify(remoteRepository, times(1)).getAll();
-        verify(localRepository, times(1)).saveAll(List.of(tenistaTest));
+        verify(localRepository, times(1)).syncAll(List.of(tenistaTest));
     }
 
 
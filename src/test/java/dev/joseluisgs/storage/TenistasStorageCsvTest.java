@@ -5,6 +5,7 @@ import dev.joseluisgs.models.Tenista;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
 
 import java.io.File;
 import java.io.IOException;
@@ -92,6 +93,24 @@ public class TenistasStorageCsvTest {
         );
     }
 
+    @Test
+    @DisplayName("Exportar un Flux debe escribir la cabecera y una línea por tenista")
+    void exportFileFluxDebeEscribirUnaLineaPorTenista(@TempDir Path tempDir) throws IOException {
+        var file = new File(tempDir.toFile(), "tenistas_flux.csv");
+
+        var result = storage.exportFile(file, Flux.just(tenistaTest, tenistaTest))
+                .blockOptional();
+        var contenido = Files.readString(file.toPath());
+
+        assertAll("Verificación de resultados",
+                () -> assertTrue(result.isPresent(), "El resultado debe estar presente"),
+                () -> assertTrue(result.get().isRight(), "El resultado debe ser un 'Right'"),
+                () -> assertEquals(2, result.get().get(), "El número de tenistas exportados debe ser 2"),
+                () -> assertEquals(3, contenido.split("\n").length, "Debe haber cabecera y dos líneas"),
+                () -> assertFalse(contenido.endsWith("\n"), "No debe acabar en salto de línea")
+        );
+    }
+
     @Test
     @DisplayName("Exportar fichero debe devolver error si el fichero no existe")
     void exportFileDebeDevolverErrorSiFicheroNoExiste() {
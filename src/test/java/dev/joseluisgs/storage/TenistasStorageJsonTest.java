@@ -5,6 +5,7 @@ import dev.joseluisgs.models.Tenista;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
 
 import java.io.File;
 import java.io.IOException;
@@ -123,4 +124,21 @@ class TenistasStorageJsonTest {
                 () -> assertTrue(result.get().getLeft().getMessage().contains("Error al acceder al fichero"), "El mensaje del error debe contener 'Error al acceder al fichero'")
         );
     }
+
+    @Test
+    @DisplayName("Si la exportación falla a medias el fichero no debe parecer un JSON completo")
+    void exportFileFallidoNoDebeDejarUnJsonValido(@TempDir Path tempDir) {
+        var file = new File(tempDir.toFile(), "tenistas_output.json");
+
+        var result = storage.exportFile(file, Flux.concat(Flux.just(tenistaTest), Flux.error(new IllegalStateException("Error leyendo tenistas"))))
+                .blockOptional();
+        var importado = storage.importFile(file).blockOptional();
+
+        assertAll(
+                "Resultados de la exportación fallida",
+                () -> assertTrue(result.isPresent(), "El resultado debe estar presente"),
+                () -> assertTrue(result.get().isLeft(), "El resultado debe contener un error"),
+                () -> assertTrue(importado.get().isLeft(), "El fichero a medias no debería poder importarse")
+        );
+    }
 }